@@ -0,0 +1,58 @@
+#!/bin/bash
+# Compare startup of the plain image (Dockerfile) with the AOT + CDS image (Dockerfile.aot).
+# For each run it reports time-to-ready (docker run until /actuator/health is UP), Spring's own
+# "Started ... in" time and the JVM's resident memory once ready.
+# Usage: ./scripts/startup-benchmark.sh [runs]   (Postgres and Kafka must be up: ./scripts/start-local-dev.sh)
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+CONTAINER=transactio-startup-benchmark
+NETWORK=$(docker inspect transactio-postgres -f '{{range $name, $_ := .NetworkSettings.Networks}}{{$name}}{{end}}')
+
+cd "$(dirname "$0")/.."
+
+echo "Building images..."
+docker build -q -f Dockerfile -t transactio:plain . > /dev/null
+docker build -q -f Dockerfile.aot -t transactio:aot . > /dev/null
+
+run_once() {
+  local image=$1
+  docker rm -f "$CONTAINER" > /dev/null 2>&1 || true
+
+  local start=$(date +%s%N)
+  docker run -d --name "$CONTAINER" --network "$NETWORK" -p "$PORT:8080" \
+    -e SPRING_PROFILES_ACTIVE=postgres,docker \
+    -e SPRING_KAFKA_BOOTSTRAP_SERVERS=kafka:29092 \
+    -e DB_HOST=postgres -e DB_PORT=5432 -e DB_NAME=transactiodb \
+    -e DB_USERNAME=postgres -e DB_PASSWORD=postgres \
+    "$image" > /dev/null
+
+  until curl -sf "http://localhost:$PORT/actuator/health" | grep -q '"status":"UP"'; do
+    if [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge 120 ]; then
+      echo "$image did not become ready within 120s" >&2
+      docker logs --tail 50 "$CONTAINER" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  local ready_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+
+  local started=$(docker logs "$CONTAINER" 2>&1 | grep -o 'Started TransactioApplication in [0-9.]* seconds' | grep -o '[0-9.]*')
+  local rss_kb=$(docker exec "$CONTAINER" sh -c 'grep VmRSS /proc/$(pidof java)/status' | awk '{print $2}')
+
+  docker rm -f "$CONTAINER" > /dev/null
+  echo "$ready_ms ${started:-0} $(( rss_kb / 1024 ))"
+}
+
+printf "%-16s %5s %14s %12s %8s\n" "image" "run" "ready (ms)" "started (s)" "RSS (MB)"
+for image in transactio:plain transactio:aot; do
+  results=""
+  for run in $(seq 1 "$RUNS"); do
+    read -r ready started rss <<< "$(run_once "$image")"
+    printf "%-16s %5s %14s %12s %8s\n" "$image" "$run" "$ready" "$started" "$rss"
+    results+="$ready $started $rss"$'\n'
+  done
+  echo "$results" | awk -v image="$image" 'NF { r += $1; s += $2; m += $3; n++ }
+    END { printf "%-16s %5s %14.0f %12.3f %8.0f\n\n", image, "avg", r / n, s / n, m / n }'
+done
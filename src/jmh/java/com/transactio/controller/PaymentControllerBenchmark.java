@@ -0,0 +1,140 @@
+package com.transactio.controller;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.config.RequestLoggingFilter;
+import com.transactio.dto.PaymentRequest;
+import com.transactio.dto.PaymentResponse;
+import com.transactio.exception.GlobalExceptionHandler;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import com.transactio.service.PaymentService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * {@code POST /api/v1/payments} through MockMvc: JSON binding, bean validation, controller logging
+ * and response serialization, with the service stubbed out so only the web layer is measured.
+ *
+ * <p>Logging goes through the same async appender setup as {@code logback-spring.xml}, writing to a
+ * discarding stream. {@code logLevel} is the level of {@code com.transactio} (INFO in production,
+ * DEBUG in development) and {@code sampleRate} that of the access-log filter, so the cost of each
+ * logging mode on the request path can be read off directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentControllerBenchmark {
+
+    private MockMvc mockMvc;
+    private byte[] body;
+    private LocalValidatorFactoryBean validator;
+
+    @Param({"INFO", "DEBUG"})
+    private String logLevel;
+
+    @Param({"0.0", "1.0"})
+    private double sampleRate;
+
+    @Setup
+    public void setUp() throws Exception {
+        configureLogging();
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        PaymentResponse response = new PaymentResponse(UUID.randomUUID(), Money.of(new BigDecimal("150.50"), "USD"),
+            PaymentStatus.PENDING, "user001", "user002", "Benchmark payment", Instant.now(), Instant.now());
+        PaymentService paymentService = Mockito.mock(PaymentService.class);
+        Mockito.when(paymentService.createPayment(any())).thenReturn(response);
+
+        validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new PaymentController(paymentService, null, objectMapper, null, null))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .setValidator(validator)
+            .addFilters(requestLoggingFilter())
+            .build();
+
+        body = objectMapper.writeValueAsBytes(
+            new PaymentRequest(new BigDecimal("150.50"), "USD", "user001", "user002", "Benchmark payment"));
+    }
+
+    private RequestLoggingFilter requestLoggingFilter() {
+        RequestLoggingFilter filter = new RequestLoggingFilter();
+        ReflectionTestUtils.setField(filter, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(filter, "slowThresholdMs", Long.MAX_VALUE);
+        return filter;
+    }
+
+    private void configureLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{HH:mm:ss.SSS} %5p [%thread{10}] %logger{36} - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(1638);
+        async.setNeverBlock(true);
+        async.addAppender(sink);
+        async.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+        root.addAppender(async);
+        context.getLogger("com.transactio").setLevel(Level.toLevel(logLevel));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validator.close();
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+    }
+
+    @Benchmark
+    public MvcResult createPayment() throws Exception {
+        return mockMvc.perform(post("/api/v1/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andReturn();
+    }
+}
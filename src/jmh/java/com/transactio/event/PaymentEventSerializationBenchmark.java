@@ -0,0 +1,69 @@
+package com.transactio.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON versus {@link PaymentEventBinaryCodec} for one event; run with {@code -prof gc} for allocation
+ * rate. The encoded sizes are checked in {@code PaymentEventBinaryCodecTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentEventSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PaymentEvent event;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same modules and features as the application's ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        event = PaymentEvent.builder()
+            .paymentId(UUID.randomUUID())
+            .userId(UUID.randomUUID())
+            .amount(Money.of(new BigDecimal("150.50"), "USD"))
+            .eventType(PaymentEventType.PAYMENT_CREATED)
+            .status(PaymentStatus.PENDING)
+            .timestamp(Instant.now())
+            .message("Payment created successfully")
+            .receiverId(UUID.randomUUID().toString())
+            .description("Invoice 2024-0042")
+            .build();
+        json = objectMapper.writeValueAsBytes(event);
+        binary = PaymentEventBinaryCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public PaymentEvent jsonDecode() throws Exception {
+        return objectMapper.readValue(json, PaymentEvent.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return PaymentEventBinaryCodec.encode(event);
+    }
+
+    @Benchmark
+    public PaymentEvent binaryDecode() {
+        return PaymentEventBinaryCodec.decode(binary);
+    }
+}
@@ -0,0 +1,49 @@
+package com.transactio.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Money} against the {@link BigDecimal} it replaced on the payment path: converting the
+ * request amount once, and rendering the amount for JSON on every response and event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private BigDecimal decimal;
+    private Money money;
+
+    @Setup
+    public void setUp() {
+        decimal = new BigDecimal("150.50");
+        money = Money.of(decimal, "USD");
+    }
+
+    @Benchmark
+    public Money fromBigDecimal() {
+        return Money.of(decimal, "USD");
+    }
+
+    @Benchmark
+    public String moneyToPlainString() {
+        return money.toPlainString();
+    }
+
+    @Benchmark
+    public String bigDecimalToPlainString() {
+        return decimal.toPlainString();
+    }
+
+    @Benchmark
+    public Money paymentAmount() {
+        // What Payment.getAmount() does for every mapToResponse/createPaymentEvent
+        return Money.ofMinor(money.minorUnits(), money.currency());
+    }
+}
@@ -0,0 +1,89 @@
+package com.transactio.service;
+
+import com.transactio.model.AccountBalance;
+import com.transactio.model.Money;
+import com.transactio.repository.AccountBalanceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput of {@link AccountLedger} under a skewed workload: {@code hotShare} of
+ * transfers debit one of {@code hotAccounts} accounts, the rest are spread over
+ * {@code accounts}. The store is in memory, so this measures sequencing and batching only; compare
+ * {@code shards=1} (a single global lane) with the default.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class AccountLedgerBenchmark {
+
+    @Param({"1", "64"})
+    public int shards;
+
+    @Param({"10000"})
+    public int accounts;
+
+    @Param({"10"})
+    public int hotAccounts;
+
+    @Param({"0.8"})
+    public double hotShare;
+
+    private AccountLedger ledger;
+    private Money amount;
+
+    /** Balances never run out, and every flush succeeds, so only the ledger itself is measured. */
+    static class InMemoryBalances implements AccountBalanceRepository {
+
+        private static final long OPENING_BALANCE = 100_000_000_000L;
+
+        private final ConcurrentHashMap<String, AccountBalance> rows = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<AccountBalance> find(String accountId, String currency) {
+            return Optional.of(rows.computeIfAbsent(accountId + currency,
+                key -> new AccountBalance(accountId, currency, OPENING_BALANCE, 0L)));
+        }
+
+        @Override
+        public boolean applyAll(List<BalanceUpdate> updates) {
+            for (BalanceUpdate update : updates) {
+                // An account first seen through a credit opens with the same balance as any other
+                rows.compute(update.accountId() + update.currency(), (key, row) -> row == null
+                    ? new AccountBalance(update.accountId(), update.currency(), OPENING_BALANCE + update.deltaMinor(), 0L)
+                    : new AccountBalance(row.accountId(), row.currency(), row.balanceMinor() + update.deltaMinor(),
+                        update.expectedVersion() != null ? row.version() + 1 : row.version()));
+            }
+            return true;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ledger = new AccountLedger(new InMemoryBalances(), true, shards, 256, new SimpleMeterRegistry());
+        amount = Money.ofMinor(100, Money.currency("USD"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ledger.shutdown();
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextDouble() < hotShare ? random.nextInt(hotAccounts) : random.nextInt(accounts);
+        int to = random.nextInt(accounts);
+        ledger.transfer("acct-" + from, "acct-" + to, amount).join();
+    }
+}
@@ -0,0 +1,69 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.model.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-payment cost of {@link FraudScreen#evaluate} with the shipped {@code fraud-rules.json}
+ * (amount, blocked-currency and two velocity windows) over a population of distinct senders.
+ * {@code gc.alloc.rate.norm} should stay at zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FraudScreenBenchmark {
+
+    @Param({"1000", "100000"})
+    public int senders;
+
+    private FraudScreen fraudScreen;
+    private String[] senderIds;
+    private Money[] amounts;
+
+    @Setup
+    public void setUp() {
+        fraudScreen = new FraudScreen(new ObjectMapper(), new SimpleMeterRegistry(),
+            new ClassPathResource("fraud-rules.json"), true, 262_144, 10);
+        senderIds = new String[senders];
+        for (int i = 0; i < senders; i++) {
+            senderIds[i] = UUID.randomUUID().toString();
+        }
+        Currency usd = Currency.getInstance("USD");
+        amounts = new Money[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = Money.ofMinor(ThreadLocalRandom.current().nextLong(100, 100_000), usd);
+        }
+        // One amount over the limit, so the decline path is part of the mix
+        amounts[0] = Money.of(new BigDecimal("75000.00"), "USD");
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public String evaluate(Cursor cursor) {
+        int i = cursor.next++;
+        return fraudScreen.evaluate(senderIds[Math.floorMod(i, senders)], amounts[i & 1023], System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String evaluateContended(Cursor cursor) {
+        int i = cursor.next++;
+        return fraudScreen.evaluate(senderIds[Math.floorMod(i, senders)], amounts[i & 1023], System.currentTimeMillis());
+    }
+}
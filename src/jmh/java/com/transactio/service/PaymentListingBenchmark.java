@@ -0,0 +1,200 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentResponse;
+import com.transactio.model.Payment;
+import com.transactio.model.PaymentView;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 100k-row status listing against an embedded Postgres, read as managed entities (what the
+ * listing queries returned before) and as {@link PaymentView} projections, each mapped to
+ * {@link PaymentResponse}. {@code gc.alloc.rate.norm} is the heap cost of one listing. Also
+ * measures {@code find} by id with the Hibernate second-level cache off and on.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaymentListingBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int LOOKUP_IDS = 1_000;
+
+    private static final String LISTING = """
+        select * from payments
+        where status = 'COMPLETED' and created_at >= :createdAt and (created_at, id) > (:createdAt, :id)
+        order by created_at, id
+        limit :limit""";
+
+    private static final String SEED = """
+        insert into payments (id, amount_minor, currency, status, created_at, updated_at,
+                              sender_id, receiver_id, description)
+        select gen_random_uuid(), 1000 + g, 'USD', 'COMPLETED', now() - g * interval '1 second', now(),
+               'user-' || (g % 1000), 'user-' || ((g + 1) % 1000), 'Benchmark payment ' || g
+        from generate_series(1, ?) g""";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        EmbeddedPostgres postgres;
+        DataSource dataSource;
+        EntityManagerFactory entityManagerFactory;
+        PaymentService paymentService;
+        List<UUID> ids;
+
+        @Setup
+        public void setUp() throws IOException {
+            postgres = EmbeddedPostgres.builder().start();
+            dataSource = postgres.getPostgresDatabase();
+            Flyway.configure().dataSource(dataSource).load().migrate();
+
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.queryForObject("select create_payment_partitions(now() - interval '1 month', now())", Integer.class);
+            jdbc.update(SEED, ROWS);
+            jdbc.execute("analyze payments");
+            ids = jdbc.queryForList("select id from payments order by id limit " + LOOKUP_IDS, UUID.class);
+
+            entityManagerFactory = entityManagerFactory(dataSource, false);
+            // mapToResponse does not touch the collaborators
+            paymentService = new PaymentService(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            entityManagerFactory.close();
+            postgres.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SecondLevelCache {
+
+        @Param({"false", "true"})
+        public boolean enabled;
+
+        EntityManagerFactory entityManagerFactory;
+        List<UUID> ids;
+        int next;
+
+        @Setup
+        public void setUp(Database database) {
+            entityManagerFactory = entityManagerFactory(database.dataSource, enabled);
+            ids = database.ids;
+        }
+
+        @TearDown
+        public void tearDown() {
+            entityManagerFactory.close();
+        }
+    }
+
+    static EntityManagerFactory entityManagerFactory(DataSource dataSource, boolean secondLevelCache) {
+        Map<String, Object> properties = new HashMap<>();
+        // Spring Boot's naming: createdAt is the created_at column
+        properties.put("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName());
+        properties.put("hibernate.cache.use_second_level_cache", secondLevelCache);
+        properties.put("hibernate.cache.region.factory_class", "jcache");
+        properties.put("hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        properties.put("hibernate.javax.cache.uri", "classpath://caffeine-jcache.conf");
+        properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+        properties.put("jakarta.persistence.sharedCache.mode", "ENABLE_SELECTIVE");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.transactio.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    @Benchmark
+    public List<PaymentResponse> listEntities(Database database) {
+        EntityManager em = database.entityManagerFactory.createEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Payment> rows = bind(em.createNativeQuery(LISTING, Payment.class)).getResultList();
+            List<PaymentResponse> responses = new ArrayList<>(rows.size());
+            for (Payment payment : rows) {
+                responses.add(database.paymentService.mapToResponse(payment));
+            }
+            return responses;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<PaymentResponse> listEntitiesReadOnly(Database database) {
+        EntityManager em = database.entityManagerFactory.createEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Payment> rows = bind(em.createNativeQuery(LISTING, Payment.class))
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+            List<PaymentResponse> responses = new ArrayList<>(rows.size());
+            for (Payment payment : rows) {
+                responses.add(database.paymentService.mapToResponse(payment));
+            }
+            return responses;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<PaymentResponse> listProjections(Database database) {
+        EntityManager em = database.entityManagerFactory.createEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<PaymentView> rows = bind(em.createNativeQuery(LISTING, PaymentView.MAPPING)).getResultList();
+            List<PaymentResponse> responses = new ArrayList<>(rows.size());
+            for (PaymentView row : rows) {
+                responses.add(database.paymentService.mapToResponse(row));
+            }
+            return responses;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Payment findById(SecondLevelCache cache) {
+        UUID id = cache.ids.get(cache.next++ % cache.ids.size());
+        EntityManager em = cache.entityManagerFactory.createEntityManager();
+        try {
+            return em.find(Payment.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Query bind(Query query) {
+        return query
+            .setParameter("createdAt", Instant.EPOCH)
+            .setParameter("id", new UUID(0L, 0L))
+            .setParameter("limit", ROWS);
+    }
+}
@@ -0,0 +1,56 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentResponse;
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventType;
+import com.transactio.model.Money;
+import com.transactio.model.Payment;
+import com.transactio.model.PaymentStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-payment mapping cost on the create path. Run with {@code -prof gc} to see bytes allocated
+ * per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentServiceBenchmark {
+
+    private PaymentService paymentService;
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        // Neither method touches the collaborators
+        paymentService = new PaymentService(null, null, null, null, null, null, null, null, null, null, null, null);
+
+        payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setAmount(Money.of(new BigDecimal("150.50"), "USD"));
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setSenderId(UUID.randomUUID().toString());
+        payment.setReceiverId(UUID.randomUUID().toString());
+        payment.setDescription("Benchmark payment");
+        payment.setCreatedAt(Instant.now());
+        payment.setUpdatedAt(Instant.now());
+    }
+
+    @Benchmark
+    public PaymentResponse mapToResponse() {
+        return paymentService.mapToResponse(payment);
+    }
+
+    @Benchmark
+    public PaymentEvent createPaymentEvent() {
+        return paymentService.createPaymentEvent(payment, PaymentEventType.PAYMENT_CREATED, "Payment created successfully");
+    }
+}
@@ -0,0 +1,121 @@
+package com.transactio.loadtest;
+
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventBinaryDeserializer;
+import com.transactio.event.PaymentEventType;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures time from the create request being sent to the payment's terminal event on
+ * {@code payment-events}. The terminal event may arrive before the workload registers the payment
+ * (short processing delays), so both sides are merged into one entry per payment and recorded once
+ * both halves are present.
+ */
+class CompletionTracker implements AutoCloseable {
+
+    private record Mark(Long createdAt, Long finishedAt, boolean failed) {
+
+        Mark combine(Mark other) {
+            return new Mark(createdAt != null ? createdAt : other.createdAt,
+                finishedAt != null ? finishedAt : other.finishedAt,
+                failed || other.failed);
+        }
+    }
+
+    private final KafkaConsumer<String, PaymentEvent> consumer;
+    private final Thread poller;
+    private final Map<UUID, Mark> marks = new ConcurrentHashMap<>();
+    private final Histogram completed = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+
+    CompletionTracker(String bootstrapServers, String topic) {
+        consumer = new KafkaConsumer<>(Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+            ConsumerConfig.GROUP_ID_CONFIG, "loadtest-" + UUID.randomUUID(),
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false),
+            new StringDeserializer(), new PaymentEventBinaryDeserializer());
+        consumer.subscribe(List.of(topic));
+        poller = Thread.ofPlatform().name("loadtest-completions").start(this::poll);
+    }
+
+    void track(UUID paymentId, long createdAtNanos) {
+        merge(paymentId, new Mark(createdAtNanos, null, false));
+    }
+
+    private void poll() {
+        try {
+            while (running) {
+                for (ConsumerRecord<String, PaymentEvent> record : consumer.poll(Duration.ofMillis(200))) {
+                    PaymentEvent event = record.value();
+                    if (event == null) {
+                        continue;
+                    }
+                    if (event.getEventType() == PaymentEventType.PAYMENT_COMPLETED
+                        || event.getEventType() == PaymentEventType.PAYMENT_FAILED) {
+                        merge(event.getPaymentId(), new Mark(null, System.nanoTime(),
+                            event.getEventType() == PaymentEventType.PAYMENT_FAILED));
+                    }
+                }
+            }
+        } catch (WakeupException e) {
+            // close() interrupts the poll
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void merge(UUID paymentId, Mark mark) {
+        Mark combined = marks.merge(paymentId, mark, Mark::combine);
+        if (combined.createdAt() != null && combined.finishedAt() != null && marks.remove(paymentId, combined)) {
+            if (combined.failed()) {
+                failed.incrementAndGet();
+            } else {
+                completed.recordValue(TimeUnit.NANOSECONDS.toMicros(combined.finishedAt() - combined.createdAt()));
+            }
+        }
+    }
+
+    /** Tracked payments with no terminal event yet. */
+    long outstanding() {
+        return marks.values().stream().filter(mark -> mark.createdAt() != null).count();
+    }
+
+    /** Waits until every tracked payment has finished or the timeout expires. */
+    void awaitCompletion(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(250);
+        }
+    }
+
+    Histogram completed() {
+        return completed;
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        poller.join();
+    }
+}
@@ -0,0 +1,178 @@
+package com.transactio.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.transactio.TransactioApplication;
+import com.transactio.loadtest.LoadTestSettings.Operation;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.convert.support.ConfigurableConversionService;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * End-to-end load test with no external infrastructure: starts an embedded Kafka (KRaft) broker and
+ * an embedded Postgres, boots the application against them with the {@code postgres} profile, drives
+ * the configured request mix over HTTP and reports throughput, latency percentiles and
+ * time-to-COMPLETED. See {@code docs/LOAD_TESTING.md}.
+ *
+ * <p>{@code --loadtest.*} options configure the driver; every other {@code --key=value} option is
+ * passed to the application, e.g. {@code --transactio.processing.completion-delay=500ms}.
+ */
+public class LoadTest {
+
+    private static final String TOPIC = "payment-events";
+
+    public static void main(String[] args) throws Exception {
+        StandardEnvironment env = new StandardEnvironment();
+        env.setConversionService((ConfigurableConversionService) ApplicationConversionService.getSharedInstance());
+        env.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        LoadTestSettings settings = LoadTestSettings.from(env);
+
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, settings.partitions(), TOPIC);
+        kafka.afterPropertiesSet();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+            // Command-line arguments, so they take precedence over application-postgres.yml
+            appArgs.add("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"));
+            appArgs.add("--spring.datasource.username=postgres");
+            appArgs.add("--spring.datasource.password=postgres");
+            appArgs.add("--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString());
+            appArgs.add("--transactio.kafka.topic.partitions=" + settings.partitions());
+            addDefault(appArgs, "server.port", "0");
+            // Console logging at DEBUG would measure the terminal, not the service
+            addDefault(appArgs, "logging.level.com.transactio", "INFO");
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(TransactioApplication.class)
+                    .profiles("postgres")
+                    .run(appArgs.toArray(String[]::new));
+                 CompletionTracker tracker = new CompletionTracker(kafka.getBrokersAsString(), TOPIC);
+                 HttpClient client = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                System.out.printf("Load test: warmup %s, duration %s, concurrency %d, mix %s%n",
+                    settings.warmup(), settings.duration(), settings.concurrency(), settings.mix());
+
+                URI baseUri = URI.create("http://localhost:" + port);
+                Workload workload = new Workload(client, baseUri, settings, tracker);
+                Map<Operation, Workload.Stats> stats = workload.run();
+                tracker.awaitCompletion(settings.completionWait());
+
+                report(settings, stats, tracker, aggregates(client, baseUri, settings));
+            }
+        } finally {
+            kafka.destroy();
+        }
+    }
+
+    private static void addDefault(List<String> args, String key, String value) {
+        String prefix = "--" + key + "=";
+        if (args.stream().noneMatch(arg -> arg.startsWith(prefix))) {
+            args.add(prefix + value);
+        }
+    }
+
+    /**
+     * Payment volumes the Kafka Streams aggregates saw over the whole run, or null when the endpoint
+     * is disabled or not ready.
+     */
+    private static Object aggregates(HttpClient client, URI baseUri, LoadTestSettings settings) throws Exception {
+        Duration run = settings.warmup().plus(settings.duration()).plus(settings.completionWait()).plusMinutes(1);
+        Duration window = run.compareTo(Duration.ofHours(1)) < 0 ? run : Duration.ofHours(1);
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(baseUri.resolve("/api/v1/payments/aggregates?window=" + window)).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            System.out.printf("%nAggregates unavailable (%d): %s%n", response.statusCode(), response.body());
+            return null;
+        }
+        return new ObjectMapper().readValue(response.body(), Object.class);
+    }
+
+    private static void report(LoadTestSettings settings, Map<Operation, Workload.Stats> stats,
+                               CompletionTracker tracker, Object aggregates) throws Exception {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> operations = new LinkedHashMap<>();
+
+        System.out.printf("%n%-20s %10s %8s %12s %10s %10s %10s %10s%n",
+            "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<Operation, Workload.Stats> entry : stats.entrySet()) {
+            Histogram latency = entry.getValue().latency();
+            total += latency.getTotalCount();
+            print(entry.getKey().name().toLowerCase(), latency, entry.getValue().errors(), seconds);
+            operations.put(entry.getKey().name().toLowerCase(), summary(latency, entry.getValue().errors(), seconds));
+        }
+        System.out.printf("%-20s %10d %8s %12.1f%n", "total", total, "", total / seconds);
+
+        Histogram completed = tracker.completed();
+        print("time-to-completed", completed, tracker.failed(), Double.NaN);
+        System.out.printf("%nPayments failed: %d, still outstanding after %s: %d%n",
+            tracker.failed(), settings.completionWait(), tracker.outstanding());
+
+        Map<String, Object> completion = summary(completed, tracker.failed(), Double.NaN);
+        completion.put("outstanding", tracker.outstanding());
+        result.put("settings", Map.of(
+            "warmup", settings.warmup().toString(),
+            "duration", settings.duration().toString(),
+            "concurrency", settings.concurrency(),
+            "mix", settings.mix().toString()));
+        result.put("operations", operations);
+        result.put("timeToCompleted", completion);
+        if (aggregates != null) {
+            System.out.println("Aggregates: " + new ObjectMapper().writeValueAsString(aggregates));
+            result.put("aggregates", aggregates);
+        }
+
+        Files.createDirectories(settings.resultFile().toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.resultFile().toFile(), result);
+        System.out.println("Results written to " + settings.resultFile());
+    }
+
+    private static void print(String name, Histogram latency, long errors, double seconds) {
+        System.out.printf("%-20s %10d %8d %12s %10.1f %10.1f %10.1f %10.1f%n",
+            name, latency.getTotalCount(), errors,
+            Double.isNaN(seconds) ? "-" : String.format("%.1f", latency.getTotalCount() / seconds),
+            millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+            millis(latency.getValueAtPercentile(99.9)), millis(latency.getMaxValue()));
+    }
+
+    private static Map<String, Object> summary(Histogram latency, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", latency.getTotalCount());
+        summary.put("errors", errors);
+        if (!Double.isNaN(seconds)) {
+            summary.put("throughputPerSecond", latency.getTotalCount() / seconds);
+        }
+        summary.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+        summary.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latency.getMaxValue()));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.transactio.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load-test knobs, read from {@code --loadtest.*} command-line options.
+ *
+ * @param mix relative weights per operation, from e.g. {@code create:60,read:30,list:10}
+ * @param users distinct sender/receiver IDs the workload draws from
+ * @param completionWait how long to keep listening for COMPLETED events after the run stops
+ */
+record LoadTestSettings(
+    Duration warmup,
+    Duration duration,
+    int concurrency,
+    Map<Operation, Integer> mix,
+    int users,
+    int partitions,
+    Duration completionWait,
+    Path resultFile) {
+
+    enum Operation {
+        CREATE, READ, LIST
+    }
+
+    static LoadTestSettings from(Environment env) {
+        return new LoadTestSettings(
+            env.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(15)),
+            env.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(60)),
+            env.getProperty("loadtest.concurrency", Integer.class, 64),
+            parseMix(env.getProperty("loadtest.mix", "create:60,read:30,list:10")),
+            env.getProperty("loadtest.users", Integer.class, 1000),
+            env.getProperty("loadtest.partitions", Integer.class, 3),
+            env.getProperty("loadtest.completion-wait", Duration.class, Duration.ofSeconds(30)),
+            Path.of(env.getProperty("loadtest.result", "target/loadtest-result.json")));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("loadtest.mix entries must be operation:weight, got '" + part + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no operation with a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,185 @@
+package com.transactio.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.loadtest.LoadTestSettings.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Closed-loop HTTP driver: {@code concurrency} virtual threads each send one request at a time,
+ * picking the operation by the configured mix. Latency is recorded only after the warmup, in
+ * microseconds, per operation.
+ */
+class Workload {
+
+    record Stats(Histogram latency, long errors) {
+    }
+
+    private static final int RECENT_IDS = 10_000;
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final CompletionTracker tracker;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> users;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, Histogram> latency = new EnumMap<>(Operation.class);
+    private final AtomicLongArray errors = new AtomicLongArray(Operation.values().length);
+    private final AtomicReferenceArray<String> recentIds = new AtomicReferenceArray<>(RECENT_IDS);
+    private final AtomicLong created = new AtomicLong();
+
+    Workload(HttpClient client, URI baseUri, LoadTestSettings settings, CompletionTracker tracker) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.tracker = tracker;
+
+        // Senders must be UUIDs: PaymentService derives the event's userId from the sender
+        this.users = new ArrayList<>(settings.users());
+        for (int i = 0; i < settings.users(); i++) {
+            users.add(UUID.randomUUID().toString());
+        }
+
+        this.operations = settings.mix().keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        for (Operation operation : Operation.values()) {
+            latency.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+        }
+    }
+
+    /** Runs warmup plus measurement and returns the measured window's stats per operation. */
+    Map<Operation, Stats> run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup().toNanos();
+        long until = measureFrom + settings.duration().toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < until) {
+                        execute(pick(), System.nanoTime() >= measureFrom);
+                    }
+                });
+            }
+        }
+
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : settings.mix().keySet()) {
+            stats.put(operation, new Stats(latency.get(operation), errors.get(operation.ordinal())));
+        }
+        return stats;
+    }
+
+    private Operation pick() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void execute(Operation operation, boolean measured) {
+        String knownId = recentId();
+        if (operation == Operation.READ && knownId == null) {
+            operation = Operation.CREATE;
+        }
+
+        HttpRequest request = switch (operation) {
+            case CREATE -> HttpRequest.newBuilder(baseUri.resolve("/api/v1/payments"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(createBody()))
+                .build();
+            case READ -> HttpRequest.newBuilder(baseUri.resolve("/api/v1/payments/" + knownId)).GET().build();
+            case LIST -> HttpRequest.newBuilder(baseUri.resolve("/api/v1/payments/user/" + randomUser() + "?limit=50"))
+                .GET().build();
+        };
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+            if (response.statusCode() >= 400) {
+                countError(operation, measured);
+                return;
+            }
+            if (operation == Operation.CREATE) {
+                UUID id = UUID.fromString(readId(response.body()));
+                recentIds.set((int) (created.getAndIncrement() % RECENT_IDS), id.toString());
+                if (measured) {
+                    tracker.track(id, start);
+                }
+            }
+            if (measured) {
+                latency.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(elapsed));
+            }
+        } catch (IOException e) {
+            countError(operation, measured);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void countError(Operation operation, boolean measured) {
+        if (measured) {
+            errors.incrementAndGet(operation.ordinal());
+        }
+    }
+
+    private String createBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String sender = randomUser();
+        String receiver = randomUser();
+        BigDecimal amount = BigDecimal.valueOf(random.nextDouble(1, 1000)).setScale(2, RoundingMode.HALF_UP);
+        return """
+            {"amount":%s,"currency":"USD","senderId":"%s","receiverId":"%s","description":"load test"}\
+            """.formatted(amount.toPlainString(), sender, receiver);
+    }
+
+    private String randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private String recentId() {
+        long count = created.get();
+        if (count == 0) {
+            return null;
+        }
+        int slot = (int) (ThreadLocalRandom.current().nextLong(Math.min(count, RECENT_IDS)));
+        return recentIds.get(slot);
+    }
+
+    private String readId(String body) throws IOException {
+        JsonNode node = objectMapper.readTree(body);
+        return node.get("id").asText();
+    }
+}
@@ -0,0 +1,71 @@
+package com.transactio.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the Kafka consumers that no request depends on (the notification listener and the
+ * aggregates topology) once the application is ready, instead of during context refresh.
+ *
+ * <p>{@code @Lazy} does not help here: a lazy {@code @KafkaListener} bean is never created, so its
+ * listener would never be registered. With {@code transactio.startup.defer-consumers} the
+ * containers are registered as usual but not auto-started, and are started from a virtual thread
+ * so readiness does not wait for their consumer clients. The streams factory bean is switched off
+ * here rather than in a configurer because Boot applies {@code spring.kafka.streams.auto-startup}
+ * after the configurers run.
+ */
+@Slf4j
+@Component
+public class DeferredStartup implements SmartInitializingSingleton {
+
+    public static final String NOTIFICATIONS_LISTENER = "payment-notifications";
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ObjectProvider<StreamsBuilderFactoryBean> streams;
+    private final boolean deferConsumers;
+
+    public DeferredStartup(
+        KafkaListenerEndpointRegistry listenerRegistry,
+        ObjectProvider<StreamsBuilderFactoryBean> streams,
+        @Value("${transactio.startup.defer-consumers:false}") boolean deferConsumers) {
+        this.listenerRegistry = listenerRegistry;
+        this.streams = streams;
+        this.deferConsumers = deferConsumers;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        StreamsBuilderFactoryBean factoryBean = streams.getIfAvailable();
+        if (deferConsumers && factoryBean != null) {
+            factoryBean.setAutoStartup(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (deferConsumers) {
+            Thread.ofVirtual().name("deferred-startup").start(this::startConsumers);
+        }
+    }
+
+    private void startConsumers() {
+        long start = System.nanoTime();
+        MessageListenerContainer notifications = listenerRegistry.getListenerContainer(NOTIFICATIONS_LISTENER);
+        if (notifications != null && !notifications.isRunning()) {
+            notifications.start();
+        }
+        StreamsBuilderFactoryBean factoryBean = streams.getIfAvailable();
+        if (factoryBean != null && !factoryBean.isRunning()) {
+            factoryBean.start();
+        }
+        log.info("Started deferred Kafka consumers in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
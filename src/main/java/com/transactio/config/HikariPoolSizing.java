@@ -0,0 +1,48 @@
+package com.transactio.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the Hikari pool from the database's core count rather than from request concurrency:
+ * {@code (db-cores * 2 + effective-spindles) / instances} connections, held open as a fixed-size
+ * pool. With virtual threads every request can be waiting on a connection at once, so the pool,
+ * not the thread count, is what keeps the database from being oversubscribed.
+ *
+ * <p>{@code db-cores} of 0 assumes the database has as many cores as this host, which is right for
+ * the co-located load test and a single-box deployment.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transactio.datasource.pool-sizing.enabled", havingValue = "true")
+public class HikariPoolSizing implements BeanPostProcessor {
+
+    @Value("${transactio.datasource.pool-sizing.db-cores:0}")
+    private int dbCores;
+
+    @Value("${transactio.datasource.pool-sizing.effective-spindles:1}")
+    private int effectiveSpindles;
+
+    // Application instances sharing the database
+    @Value("${transactio.datasource.pool-sizing.instances:1}")
+    private int instances;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // After initialization, so spring.datasource.hikari.* has already been bound; the pool itself
+        // only starts on the first getConnection()
+        if (bean instanceof HikariDataSource dataSource) {
+            int cores = dbCores > 0 ? dbCores : Runtime.getRuntime().availableProcessors();
+            int size = Math.max(2, Math.ceilDiv(cores * 2 + effectiveSpindles, Math.max(1, instances)));
+            dataSource.setMaximumPoolSize(size);
+            dataSource.setMinimumIdle(size);
+            log.info("Hikari pool '{}' sized to {} connections ({} database cores, {} instances)",
+                beanName, size, cores, instances);
+        }
+        return bean;
+    }
+}
@@ -11,11 +11,14 @@ public class KafkaConfig {
   @Value("${spring.kafka.topic.payment-events}")
   private String paymentEventsTopic;
 
+  @Value("${transactio.kafka.topic.partitions:3}")
+  private int partitions;
+
   @Bean
   public NewTopic paymentEventsTopic() {
     return TopicBuilder
         .name(paymentEventsTopic)
-        .partitions(3)
+        .partitions(partitions)
         .replicas(1)
         .build();
   }
@@ -1,14 +1,18 @@
 package com.transactio.config;
 
 import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventBinaryDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.support.converter.RecordMessageConverter;
 import org.springframework.kafka.support.converter.StringJsonMessageConverter;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
@@ -26,8 +30,32 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id.notification}")
     private String groupId;
 
+    // One consumer thread per partition; extra threads beyond the partition count would sit idle
+    @Value("${transactio.kafka.consumer.concurrency:${transactio.kafka.topic.partitions:3}}")
+    private int concurrency;
+
+    @Value("${transactio.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${transactio.kafka.consumer.fetch-min-bytes:1}")
+    private int fetchMinBytes;
+
+    @Value("${transactio.kafka.consumer.fetch-max-wait-ms:500}")
+    private int fetchMaxWaitMs;
+
+    @Value("${transactio.kafka.consumer.max-partition-fetch-bytes:1048576}")
+    private int maxPartitionFetchBytes;
+
+    // json | binary; the binary deserializer also reads JSON records, so switch consumers first
+    @Value("${transactio.kafka.serialization:json}")
+    private String serialization;
+
+    // Set by the high-throughput profile; Boot only applies it to the listener factory it creates itself
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
-    public ConsumerFactory<String, PaymentEvent> consumerFactory() {
+    public ConsumerFactory<String, PaymentEvent> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
@@ -36,21 +64,42 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
         props.put(ErrorHandlingDeserializer.KEY_DESERIALIZER_CLASS, StringDeserializer.class);
-        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        if ("binary".equalsIgnoreCase(serialization)) {
+            props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, PaymentEventBinaryDeserializer.class);
+        } else {
+            props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
 
-        // Configure JsonDeserializer
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.transactio.event");
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.transactio.event.PaymentEvent");
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+            // Configure JsonDeserializer
+            props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.transactio.event");
+            props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.transactio.event.PaymentEvent");
+            props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        }
 
-        return new DefaultKafkaConsumerFactory<>(props);
+        // Batch sizing
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, fetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, fetchMaxWaitMs);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, maxPartitionFetchBytes);
+
+        DefaultKafkaConsumerFactory<String, PaymentEvent> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Binds the client's own metrics, including records-lag-max per consumer
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> kafkaListenerContainerFactory(
+        ConsumerFactory<String, PaymentEvent> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, PaymentEvent> factory =
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.setBatchListener(true);
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
         return factory;
     }
 
@@ -58,4 +107,4 @@ public class KafkaConsumerConfig {
     public RecordMessageConverter converter() {
         return new StringJsonMessageConverter();
     }
-}
\ No newline at end of file
+}
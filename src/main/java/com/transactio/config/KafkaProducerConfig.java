@@ -1,6 +1,8 @@
 package com.transactio.config;
 
 import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventBinarySerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,6 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -20,20 +23,65 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // "throughput" applies the tunables below; "latency" sends immediately and uncompressed
+    @Value("${transactio.kafka.producer.profile:throughput}")
+    private String profile;
+
+    @Value("${transactio.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${transactio.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${transactio.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${transactio.kafka.producer.max-in-flight:5}")
+    private int maxInFlight;
+
+    // json | binary (see PaymentEventBinaryCodec)
+    @Value("${transactio.kafka.serialization:json}")
+    private String serialization;
+
     @Bean
-    public ProducerFactory<String, PaymentEvent> producerFactory() {
+    public ProducerFactory<String, PaymentEvent> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        if ("binary".equalsIgnoreCase(serialization)) {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, PaymentEventBinarySerializer.class);
+        } else {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+            configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        }
+
+        // Idempotence keeps per-partition order across retries; it requires acks=all and at most 5 in flight
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, Math.min(maxInFlight, 5));
 
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        if ("latency".equalsIgnoreCase(profile)) {
+            configProps.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+            configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "none");
+        } else {
+            // The outbox relay sends a whole batch before waiting, so let the producer group records
+            configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+            configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+            configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        }
 
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, PaymentEvent> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Binds the client's own metrics (batch-size-avg, record-error-rate, request-latency-avg, ...)
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, PaymentEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, PaymentEvent> kafkaTemplate(ProducerFactory<String, PaymentEvent> producerFactory) {
+        KafkaTemplate<String, PaymentEvent> template = new KafkaTemplate<>(producerFactory);
+        // Records the spring.kafka.template timer from send to broker acknowledgement
+        template.setMicrometerEnabled(true);
+        template.setMicrometerTags(Map.of("profile", profile));
+        return template;
     }
-}
\ No newline at end of file
+}
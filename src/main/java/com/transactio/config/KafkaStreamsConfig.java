@@ -0,0 +1,160 @@
+package com.transactio.config;
+
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventBinaryDeserializer;
+import com.transactio.event.PaymentEventBinarySerializer;
+import com.transactio.event.PaymentVolume;
+import com.transactio.service.PaymentAggregateService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.errors.LogAndContinueExceptionHandler;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.StreamsBuilderFactoryBeanConfigurer;
+import org.springframework.kafka.streams.KafkaStreamsMicrometerListener;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kafka Streams topology behind {@code GET /api/v1/payments/aggregates}: counts and sums
+ * payment-events into tumbling buckets, per currency and event type and per user, in two in-memory
+ * window stores that {@link PaymentAggregateService} queries.
+ *
+ * <p>Like the cache and SSE listeners, every node uses its own application id and so reads every
+ * partition, which lets any node answer a query from its local stores. The stores are not logged
+ * and the topology never re-keys, so no changelog or repartition topics are created; a restarted
+ * node starts empty and fills up as events arrive.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "transactio.aggregates.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaStreamsConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.topic.payment-events}")
+    private String paymentEventsTopic;
+
+    @Value("${transactio.aggregates.bucket:1m}")
+    private Duration bucket;
+
+    @Value("${transactio.aggregates.retention:1h}")
+    private Duration retention;
+
+    @Value("${transactio.aggregates.user-retention:15m}")
+    private Duration userRetention;
+
+    // latest: a node only aggregates what it sees after it starts; earliest replays the topic
+    @Value("${transactio.aggregates.auto-offset-reset:latest}")
+    private String autoOffsetReset;
+
+    @Value("${transactio.aggregates.stream-threads:1}")
+    private int streamThreads;
+
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration kafkaStreamsConfiguration() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "transactio-aggregates-" + UUID.randomUUID());
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, streamThreads);
+        props.put(StreamsConfig.STATE_DIR_CONFIG,
+            Path.of(System.getProperty("java.io.tmpdir"), "transactio-streams").toString());
+        props.put(StreamsConfig.DEFAULT_DESERIALIZATION_EXCEPTION_HANDLER_CLASS_CONFIG,
+            LogAndContinueExceptionHandler.class);
+        props.put(StreamsConfig.consumerPrefix(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG), autoOffsetReset);
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    @Bean
+    public StreamsBuilderFactoryBeanConfigurer kafkaStreamsMetrics(MeterRegistry meterRegistry) {
+        return factoryBean -> factoryBean.addListener(new KafkaStreamsMicrometerListener(meterRegistry));
+    }
+
+    @Bean
+    public KStream<String, PaymentEvent> paymentVolumeStream(StreamsBuilder builder) {
+        builder.addStateStore(Stores.windowStoreBuilder(
+                Stores.inMemoryWindowStore(PaymentAggregateService.BY_TYPE_STORE, retention, bucket, false),
+                Serdes.String(), PaymentVolume.serde())
+            .withLoggingDisabled());
+        builder.addStateStore(Stores.windowStoreBuilder(
+                Stores.inMemoryWindowStore(PaymentAggregateService.BY_USER_STORE, userRetention, bucket, false),
+                Serdes.String(), PaymentVolume.serde())
+            .withLoggingDisabled());
+
+        // The binary deserializer also reads JSON records, so this works with either wire format
+        Serde<PaymentEvent> eventSerde = Serdes.serdeFrom(
+            new PaymentEventBinarySerializer(), new PaymentEventBinaryDeserializer());
+        KStream<String, PaymentEvent> events = builder.stream(paymentEventsTopic,
+            Consumed.with(Serdes.String(), eventSerde));
+        long bucketMillis = bucket.toMillis();
+        events.process(() -> new VolumeProcessor(bucketMillis),
+            PaymentAggregateService.BY_TYPE_STORE, PaymentAggregateService.BY_USER_STORE);
+        return events;
+    }
+
+    /**
+     * Adds each event to its bucket in both stores. Buckets are keyed by the event's own timestamp,
+     * so events relayed late by the outbox still land in the bucket they happened in.
+     */
+    static final class VolumeProcessor implements Processor<String, PaymentEvent, Void, Void> {
+
+        private final long bucketMillis;
+        private WindowStore<String, PaymentVolume> byType;
+        private WindowStore<String, PaymentVolume> byUser;
+
+        VolumeProcessor(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        @Override
+        public void init(ProcessorContext<Void, Void> context) {
+            byType = context.getStateStore(PaymentAggregateService.BY_TYPE_STORE);
+            byUser = context.getStateStore(PaymentAggregateService.BY_USER_STORE);
+        }
+
+        @Override
+        public void process(Record<String, PaymentEvent> record) {
+            PaymentEvent event = record.value();
+            if (event == null || event.getAmount() == null || event.getEventType() == null) {
+                return;
+            }
+            long timestamp = event.getTimestamp() != null ? event.getTimestamp().toEpochMilli() : record.timestamp();
+            long bucketStart = timestamp - Math.floorMod(timestamp, bucketMillis);
+            long amountMinor = event.getAmount().minorUnits();
+
+            String typeKey = PaymentAggregateService.typeKey(
+                event.getAmount().currency().getCurrencyCode(), event.getEventType());
+            add(byType, typeKey, bucketStart, amountMinor);
+            if (event.getUserId() != null) {
+                add(byUser, PaymentAggregateService.userKey(event.getUserId(), typeKey), bucketStart, amountMinor);
+            }
+        }
+
+        private static void add(WindowStore<String, PaymentVolume> store, String key, long bucketStart,
+                                long amountMinor) {
+            PaymentVolume current = store.fetch(key, bucketStart);
+            store.put(key, (current != null ? current : PaymentVolume.EMPTY).add(amountMinor), bucketStart);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.transactio.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One structured access-log line per API request, for a sample of requests. Requests slower than
+ * {@code transactio.logging.requests.slow-threshold-ms} and server errors are always logged. The
+ * fields are attached as key/value pairs, so structured encoders emit them as separate attributes.
+ */
+@Slf4j
+@Component
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    @Value("${transactio.logging.requests.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${transactio.logging.requests.slow-threshold-ms:1000}")
+    private long slowThresholdMs;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Async and SSE responses are only finished when the async context completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        logRequest(request, response, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                logRequest(request, response, start);
+            }
+        }
+    }
+
+    private void logRequest(HttpServletRequest request, HttpServletResponse response, long start) {
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        int status = response.getStatus();
+        if (log.isInfoEnabled() && (status >= 500 || elapsedMs >= slowThresholdMs
+            || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            log.atInfo()
+                .addKeyValue("http.method", request.getMethod())
+                .addKeyValue("http.path", request.getRequestURI())
+                .addKeyValue("http.status", status)
+                .addKeyValue("duration.ms", elapsedMs)
+                .log("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status, elapsedMs);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.transactio.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Streams JFR events for virtual threads pinned to their carrier ({@code jdk.VirtualThreadPinned})
+ * and contended monitor entry ({@code jdk.JavaMonitorEnter}) that last longer than
+ * {@code transactio.jfr.threshold}. Every event is timed under {@code transactio.jvm.thread.blocked};
+ * the first occurrence from each call site is logged with its stack, so a pinning regression shows
+ * up once in the log instead of once per request.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transactio.jfr.enabled", havingValue = "true")
+public class ThreadContentionMonitor implements SmartLifecycle {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final int LOGGED_FRAMES = 12;
+    private static final int MAX_SITES = 1000;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Timer monitorEnter;
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream stream;
+
+    public ThreadContentionMonitor(
+        @Value("${transactio.jfr.threshold:20ms}") Duration threshold,
+        MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = blockedTimer(meterRegistry, "pinned");
+        this.monitorEnter = blockedTimer(meterRegistry, "monitor-enter");
+    }
+
+    private static Timer blockedTimer(MeterRegistry meterRegistry, String kind) {
+        return Timer.builder("transactio.jvm.thread.blocked")
+            .description("Virtual thread pinning and monitor contention over the JFR threshold")
+            .tag("kind", kind)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED).withThreshold(threshold).withStackTrace();
+        recording.enable(MONITOR_ENTER).withThreshold(threshold).withStackTrace();
+        recording.onEvent(PINNED, event -> record(pinned, "Virtual thread pinned", event));
+        recording.onEvent(MONITOR_ENTER, event -> record(monitorEnter,
+            "Contended lock on " + event.getClass("monitorClass").getName(), event));
+        recording.startAsync();
+        stream = recording;
+        log.info("Watching for virtual thread pinning and monitor contention over {}", threshold);
+    }
+
+    private void record(Timer timer, String what, RecordedEvent event) {
+        timer.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        // Key on the first application or library frame; the top frames are the JDK's parking code
+        String site = frames.stream()
+            .map(ThreadContentionMonitor::frame)
+            .filter(name -> !name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun."))
+            .findFirst()
+            .orElseGet(() -> frame(frames.get(0)));
+        if (loggedSites.size() < MAX_SITES && loggedSites.add(what + " " + site)) {
+            String stack = frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(ThreadContentionMonitor::frame)
+                .collect(Collectors.joining("\n\tat ", "\tat ", ""));
+            RecordedThread thread = event.getThread("eventThread");
+            log.warn("{} for {} ms on {} (first at this site)\n{}", what, event.getDuration().toMillis(),
+                thread != null ? thread.getJavaName() : "?", stack);
+        }
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        if (recording != null) {
+            recording.close();
+            stream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.transactio.controller;
+
+import com.transactio.dto.PaymentAggregatesResponse;
+import com.transactio.exception.InvalidAggregateWindowException;
+import com.transactio.service.PaymentAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Real-time payment volumes from the node's Kafka Streams window stores. {@code window} takes the
+ * same forms as duration properties, e.g. {@code 5m}, {@code 90s} or {@code PT1H}.
+ */
+@RestController
+@RequestMapping("/api/v1/payments/aggregates")
+@RequiredArgsConstructor
+public class PaymentAggregateController {
+
+  private static final String DEFAULT_WINDOW = "5m";
+
+  private final PaymentAggregateService aggregateService;
+
+  @GetMapping
+  public ResponseEntity<PaymentAggregatesResponse> getVolumes(
+      @RequestParam(defaultValue = DEFAULT_WINDOW) String window) {
+    return ResponseEntity.ok(aggregateService.volumes(parseWindow(window)));
+  }
+
+  @GetMapping("/user/{userId}")
+  public ResponseEntity<PaymentAggregatesResponse> getUserVolumes(
+      @PathVariable UUID userId,
+      @RequestParam(defaultValue = DEFAULT_WINDOW) String window) {
+    return ResponseEntity.ok(aggregateService.userVolumes(userId, parseWindow(window)));
+  }
+
+  private static Duration parseWindow(String window) {
+    try {
+      return DurationStyle.detectAndParse(window);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidAggregateWindowException("Invalid window: " + window);
+    }
+  }
+}
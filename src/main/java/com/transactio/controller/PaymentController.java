@@ -1,19 +1,38 @@
 package com.transactio.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.transactio.dto.BatchPaymentResult;
+import com.transactio.dto.PaymentPage;
 import com.transactio.dto.PaymentRequest;
 import com.transactio.dto.PaymentResponse;
+import com.transactio.model.Money;
 import com.transactio.model.PaymentStatus;
+import com.transactio.service.IdempotencyService;
+import com.transactio.service.PaymentIntake;
 import com.transactio.service.PaymentService;
+import com.transactio.service.PaymentStatusStream;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/v1/payments")
@@ -21,54 +40,199 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PaymentController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+  private static final String DEFAULT_LIMIT = "50";
+  private static final int MAX_LIMIT = 500;
+  private static final int BATCH_READ_CHUNK = 5000;
+
   private final PaymentService paymentService;
+  private final IdempotencyService idempotencyService;
+  private final ObjectMapper objectMapper;
+  private final PaymentIntake paymentIntake;
+  private final PaymentStatusStream statusStream;
 
   @PostMapping
-  public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody PaymentRequest request) {
-    log.info("Received payment request: {}", request);
+  public ResponseEntity<PaymentResponse> createPayment(
+      @Valid @RequestBody PaymentRequest request,
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+    log.debug("Received payment request: {}", request);
+    if (idempotencyKey != null) {
+      IdempotencyService.Result result = idempotencyService.createPayment(idempotencyKey, request);
+      log.debug("Created payment: {} (replayed={})", result.response(), result.replayed());
+      return ResponseEntity.status(HttpStatus.CREATED)
+          .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+          .body(result.response());
+    }
     PaymentResponse response = paymentService.createPayment(request);
-    log.info("Created payment: {}", response);
+    log.debug("Created payment: {}", response);
     return ResponseEntity.status(HttpStatus.CREATED).body(response);
   }
 
+  /**
+   * Same request as {@code POST /}, answered with 202 as soon as it is queued; {@link PaymentIntake}
+   * creates the payment, grouping commits across concurrent requests. The body is the request with
+   * the payment's id, and {@code Location} is its status URL, {@code GET /async/{id}}.
+   */
+  @PostMapping("/async")
+  public ResponseEntity<PaymentResponse> createPaymentAsync(@Valid @RequestBody PaymentRequest request) {
+    log.debug("Received async payment request: {}", request);
+    UUID id = paymentIntake.submit(request);
+    PaymentResponse accepted = new PaymentResponse();
+    accepted.setId(id);
+    accepted.setAmount(Money.of(request.getAmount(), request.getCurrency()));
+    accepted.setSenderId(request.getSenderId());
+    accepted.setReceiverId(request.getReceiverId());
+    accepted.setDescription(request.getDescription());
+    return ResponseEntity.accepted().location(URI.create("/api/v1/payments/async/" + id)).body(accepted);
+  }
+
+  /**
+   * Status URL of an async payment: 202 while it waits in this node's intake, the error it could not
+   * be created with, or else 303 to {@code GET /{id}}, from where it can be followed with
+   * {@code GET /{id}/events}.
+   */
+  @GetMapping("/async/{id}")
+  public ResponseEntity<Void> getAsyncPayment(@PathVariable UUID id) {
+    RuntimeException failure = paymentIntake.failure(id);
+    if (failure != null) {
+      throw failure;
+    }
+    if (paymentIntake.isQueued(id)) {
+      return ResponseEntity.accepted()
+          .header(HttpHeaders.RETRY_AFTER, "1")
+          .location(URI.create("/api/v1/payments/async/" + id))
+          .build();
+    }
+    return ResponseEntity.status(HttpStatus.SEE_OTHER).location(URI.create("/api/v1/payments/" + id)).build();
+  }
+
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<BatchPaymentResult>> createPayments(@RequestBody List<PaymentRequest> requests) {
+    log.debug("Received batch of {} payment requests", requests.size());
+    return ResponseEntity.ok(paymentService.createPayments(requests, 0));
+  }
+
+  /**
+   * NDJSON variant of the batch endpoint. Requests are read and created one chunk at a time, so the
+   * upload is never held in memory as a whole.
+   */
+  @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<List<BatchPaymentResult>> createPaymentsFromStream(InputStream body) throws IOException {
+    List<BatchPaymentResult> results = new ArrayList<>();
+    List<PaymentRequest> chunk = new ArrayList<>(BATCH_READ_CHUNK);
+    try (MappingIterator<PaymentRequest> requests = objectMapper.readerFor(PaymentRequest.class).readValues(body)) {
+      while (requests.hasNextValue()) {
+        chunk.add(requests.nextValue());
+        if (chunk.size() == BATCH_READ_CHUNK) {
+          results.addAll(paymentService.createPayments(chunk, results.size()));
+          chunk.clear();
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      results.addAll(paymentService.createPayments(chunk, results.size()));
+    }
+    log.debug("Processed NDJSON batch of {} payment requests", results.size());
+    return ResponseEntity.ok(results);
+  }
+
   @GetMapping("/{id}")
   public ResponseEntity<PaymentResponse> getPayment(@PathVariable UUID id) {
-    log.info("Fetching payment with ID: {}", id);
+    log.debug("Fetching payment with ID: {}", id);
     PaymentResponse response = paymentService.getPaymentById(id);
-    log.info("Retrieved payment: {}", response);
+    log.debug("Retrieved payment: {}", response);
     return ResponseEntity.ok(response);
   }
 
+  /**
+   * Server-Sent Events stream of the payment's status: the current state first, then one
+   * {@code status} event per change until the payment completes or fails.
+   */
+  @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamPaymentStatus(@PathVariable UUID id) {
+    log.debug("Opening status stream for payment: {}", id);
+    return statusStream.subscribe(id);
+  }
+
   @GetMapping
-  public ResponseEntity<List<PaymentResponse>> getAllPayments() {
-    log.info("Fetching all payments");
-    List<PaymentResponse> payments = paymentService.getAllPayments();
-    log.info("Retrieved {} payments", payments.size());
-    log.debug("Payment IDs: {}", payments.stream()
-        .map(PaymentResponse::getId)
-        .collect(Collectors.toList()));
-    return ResponseEntity.ok(payments);
+  public ResponseEntity<List<PaymentResponse>> getAllPayments(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_LIMIT) int limit) {
+    log.debug("Fetching payments page, cursor={}", cursor);
+    PaymentPage page = paymentService.getAllPayments(cursor, clamp(limit));
+    log.debug("Retrieved {} payments", page.items().size());
+    return toResponse(page);
   }
 
   @GetMapping("/status/{status}")
-  public ResponseEntity<List<PaymentResponse>> getPaymentsByStatus(@PathVariable PaymentStatus status) {
-    log.info("Fetching payments with status: {}", status);
-    List<PaymentResponse> payments = paymentService.getPaymentsByStatus(status);
-    log.info("Retrieved {} payments with status {}", payments.size(), status);
-    log.debug("Payment IDs with status {}: {}", status, payments.stream()
-        .map(PaymentResponse::getId)
-        .collect(Collectors.toList()));
-    return ResponseEntity.ok(payments);
+  public ResponseEntity<List<PaymentResponse>> getPaymentsByStatus(
+      @PathVariable PaymentStatus status,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_LIMIT) int limit) {
+    log.debug("Fetching payments with status: {}, cursor={}", status, cursor);
+    PaymentPage page = paymentService.getPaymentsByStatus(status, cursor, clamp(limit));
+    log.debug("Retrieved {} payments with status {}", page.items().size(), status);
+    return toResponse(page);
   }
 
   @GetMapping("/user/{userId}")
-  public ResponseEntity<List<PaymentResponse>> getPaymentsForUser(@PathVariable String userId) {
-    log.info("Fetching payments for user: {}", userId);
-    List<PaymentResponse> payments = paymentService.getPaymentsForUser(userId);
-    log.info("Retrieved {} payments for user {}", payments.size(), userId);
-    log.debug("Payment IDs for user {}: {}", userId, payments.stream()
-        .map(PaymentResponse::getId)
-        .collect(Collectors.toList()));
-    return ResponseEntity.ok(payments);
-  }
-}
\ No newline at end of file
+  public ResponseEntity<List<PaymentResponse>> getPaymentsForUser(
+      @PathVariable String userId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_LIMIT) int limit) {
+    log.debug("Fetching payments for user: {}, cursor={}", userId, cursor);
+    PaymentPage page = paymentService.getPaymentsForUser(userId, cursor, clamp(limit));
+    log.debug("Retrieved {} payments for user {}", page.items().size(), userId);
+    return toResponse(page);
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportAllPayments() {
+    log.info("Exporting all payments");
+    return ndjson(sink -> paymentService.exportAllPayments(sink));
+  }
+
+  @GetMapping(value = "/status/{status}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportPaymentsByStatus(@PathVariable PaymentStatus status) {
+    log.info("Exporting payments with status: {}", status);
+    return ndjson(sink -> paymentService.exportPaymentsByStatus(status, sink));
+  }
+
+  @GetMapping(value = "/user/{userId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportPaymentsForUser(@PathVariable String userId) {
+    log.info("Exporting payments for user: {}", userId);
+    return ndjson(sink -> paymentService.exportPaymentsForUser(userId, sink));
+  }
+
+  private static int clamp(int limit) {
+    return Math.max(1, Math.min(limit, MAX_LIMIT));
+  }
+
+  private static ResponseEntity<List<PaymentResponse>> toResponse(PaymentPage page) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (page.nextCursor() != null) {
+      builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    return builder.body(page.items());
+  }
+
+  private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<PaymentResponse>> export) {
+    StreamingResponseBody body = out -> {
+      try (SequenceWriter writer = objectMapper.writer()
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+          .withRootValueSeparator("\n")
+          .writeValues(out)) {
+        export.accept(payment -> {
+          try {
+            writer.write(payment);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+}
@@ -0,0 +1,30 @@
+package com.transactio.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Outcome of one item in a batch create request. {@code status} is the HTTP status the item would
+ * have received as a single {@code POST /api/v1/payments}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchPaymentResult(int index, int status, PaymentResponse payment, String error,
+                                 Map<String, String> errors) {
+
+    public static BatchPaymentResult created(int index, PaymentResponse payment) {
+        return new BatchPaymentResult(index, 201, payment, null, null);
+    }
+
+    public static BatchPaymentResult invalid(int index, Map<String, String> errors) {
+        return new BatchPaymentResult(index, 400, null, "Validation Failed", errors);
+    }
+
+    public static BatchPaymentResult rejected(int index, String message) {
+        return new BatchPaymentResult(index, 503, null, message, null);
+    }
+
+    public static BatchPaymentResult failed(int index, String message) {
+        return new BatchPaymentResult(index, 500, null, message, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.transactio.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Payment volumes per currency and event type between {@code from} (a bucket boundary) and
+ * {@code to}, as seen by the node that answered.
+ */
+public record PaymentAggregatesResponse(Instant from, Instant to, List<PaymentVolumeResponse> volumes) {
+}
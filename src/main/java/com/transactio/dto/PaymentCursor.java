@@ -0,0 +1,38 @@
+package com.transactio.dto;
+
+import com.transactio.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the {@code (created_at, id)} ordering used by the payment listing endpoints.
+ * Clients treat the encoded form as opaque.
+ */
+public record PaymentCursor(Instant createdAt, UUID id) {
+
+    /** Sorts before every stored payment, used when no cursor is supplied. */
+    public static final PaymentCursor START = new PaymentCursor(Instant.EPOCH, new UUID(0L, 0L));
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PaymentCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new PaymentCursor(Instant.parse(raw.substring(0, separator)),
+                UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+}
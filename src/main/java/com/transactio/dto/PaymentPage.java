@@ -0,0 +1,9 @@
+package com.transactio.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record PaymentPage(List<PaymentResponse> items, String nextCursor) {
+}
@@ -10,6 +10,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@ValidAmount
 public class PaymentRequest {
 
     @NotNull(message = "Amount is required")
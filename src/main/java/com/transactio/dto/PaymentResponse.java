@@ -1,12 +1,13 @@
 package com.transactio.dto;
 
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.transactio.model.Money;
 import com.transactio.model.PaymentStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
@@ -15,12 +16,13 @@ import java.util.UUID;
 public class PaymentResponse {
 
     private UUID id;
-    private BigDecimal amount;
-    private String currency;
+    // Serialized as "amount" and "currency"
+    @JsonUnwrapped
+    private Money amount;
     private PaymentStatus status;
     private String senderId;
     private String receiverId;
     private String description;
-    private LocalDateTime createdAt;
-    private LocalDateTime updatedAt;
+    private Instant createdAt;
+    private Instant updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.transactio.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.transactio.model.PaymentStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One message on a payment's Server-Sent Events stream: the current state when the client
+ * subscribes, then one per status change.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PaymentStatusUpdate(UUID paymentId, PaymentStatus status, Instant timestamp, String message) {
+}
@@ -0,0 +1,12 @@
+package com.transactio.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.transactio.event.PaymentEventType;
+import com.transactio.model.Money;
+
+/**
+ * Number of payment events of one type and their total, in one currency. The total is serialized as
+ * {@code amount} and {@code currency}.
+ */
+public record PaymentVolumeResponse(PaymentEventType eventType, long count, @JsonUnwrapped Money total) {
+}
@@ -0,0 +1,60 @@
+package com.transactio.dto;
+
+import com.transactio.model.Money;
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Checks that a {@link PaymentRequest}'s amount and currency form a valid {@link Money}: a known
+ * ISO 4217 currency and no more decimal places than it allows. Violations are reported on the
+ * {@code currency} or {@code amount} field.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = ValidAmount.Validator.class)
+public @interface ValidAmount {
+
+    String message() default "Amount is not valid for the currency";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    class Validator implements ConstraintValidator<ValidAmount, PaymentRequest> {
+
+        @Override
+        public boolean isValid(PaymentRequest request, ConstraintValidatorContext context) {
+            if (request.getAmount() == null || request.getCurrency() == null || request.getCurrency().length() != 3) {
+                // Reported by the field constraints
+                return true;
+            }
+            try {
+                Money.currency(request.getCurrency());
+            } catch (IllegalArgumentException e) {
+                return reject(context, "currency", "Currency must be a supported ISO 4217 code");
+            }
+            try {
+                Money.of(request.getAmount(), request.getCurrency());
+            } catch (IllegalArgumentException e) {
+                return reject(context, "amount", "Amount has more decimal places than " + request.getCurrency()
+                    + " allows or is too large");
+            }
+            return true;
+        }
+
+        private static boolean reject(ConstraintValidatorContext context, String field, String message) {
+            context.disableDefaultConstraintViolation();
+            context.buildConstraintViolationWithTemplate(message)
+                .addPropertyNode(field)
+                .addConstraintViolation();
+            return false;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.transactio.event;
 
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.transactio.model.Money;
 import com.transactio.model.PaymentStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
@@ -16,10 +17,14 @@ import java.util.UUID;
 public class PaymentEvent {
   private UUID paymentId;
   private UUID userId;
-  private BigDecimal amount;
-  private String currency;
+  // Serialized as "amount" and "currency"
+  @JsonUnwrapped
+  private Money amount;
   private PaymentEventType eventType;
   private PaymentStatus status;
-  private LocalDateTime timestamp;
+  private Instant timestamp;
   private String message;
+  // Only on PAYMENT_CREATED, so the event carries the whole payment for PaymentProjection
+  private String receiverId;
+  private String description;
 }
\ No newline at end of file
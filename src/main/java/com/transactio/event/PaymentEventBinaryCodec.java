@@ -0,0 +1,230 @@
+package com.transactio.event;
+
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link PaymentEvent}.
+ *
+ * <pre>
+ * version:u8  presence:u8 (version 1) or u16 (version 2)
+ * paymentId:16  userId:16                    UUID as two big-endian longs
+ * unscaled:i64  scale:u8                     amount in minor units and the currency's decimal places
+ * currency:3                                 ASCII
+ * eventType:u8  status:u8                    enum ordinals
+ * timestamp:i64                              epoch millis
+ * messageLength:u16  message:messageLength   UTF-8
+ * receiverId, description                    version 2 only; each u16 length + UTF-8
+ * </pre>
+ *
+ * Each field is written only when its bit in {@code presence} is set, so nulls cost nothing.
+ * Events without a receiver or description are still written as version 1, so only
+ * {@code PAYMENT_CREATED} records need a consumer that reads version 2.
+ * Enum ordinals go on the wire, so {@link PaymentEventType} and {@link PaymentStatus} must only
+ * ever be appended to. Amount and currency are written together, and timestamps are truncated to
+ * millisecond precision. Records whose scale differs from the currency's (written before amounts
+ * were stored in minor units) are rescaled on decode.
+ */
+public final class PaymentEventBinaryCodec {
+
+  public static final byte VERSION = 2;
+  private static final byte VERSION_1 = 1;
+
+  private static final int PAYMENT_ID = 1;
+  private static final int USER_ID = 1 << 1;
+  private static final int AMOUNT = 1 << 2;
+  private static final int CURRENCY = 1 << 3;
+  private static final int EVENT_TYPE = 1 << 4;
+  private static final int STATUS = 1 << 5;
+  private static final int TIMESTAMP = 1 << 6;
+  private static final int MESSAGE = 1 << 7;
+  private static final int RECEIVER_ID = 1 << 8;
+  private static final int DESCRIPTION = 1 << 9;
+
+  private static final PaymentEventType[] EVENT_TYPES = PaymentEventType.values();
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private PaymentEventBinaryCodec() {
+  }
+
+  public static byte[] encode(PaymentEvent event) {
+    int presence = 0;
+    int size = 2;
+    if (event.getPaymentId() != null) {
+      presence |= PAYMENT_ID;
+      size += 16;
+    }
+    if (event.getUserId() != null) {
+      presence |= USER_ID;
+      size += 16;
+    }
+    Money amount = event.getAmount();
+    if (amount != null) {
+      presence |= AMOUNT | CURRENCY;
+      size += 9 + 3;
+    }
+    if (event.getEventType() != null) {
+      presence |= EVENT_TYPE;
+      size += 1;
+    }
+    if (event.getStatus() != null) {
+      presence |= STATUS;
+      size += 1;
+    }
+    if (event.getTimestamp() != null) {
+      presence |= TIMESTAMP;
+      size += 8;
+    }
+    byte[] message = null;
+    if (event.getMessage() != null) {
+      presence |= MESSAGE;
+      message = utf8(event.getMessage(), "Message");
+      size += 2 + message.length;
+    }
+    byte[] receiverId = null;
+    if (event.getReceiverId() != null) {
+      presence |= RECEIVER_ID;
+      receiverId = utf8(event.getReceiverId(), "Receiver ID");
+      size += 2 + receiverId.length;
+    }
+    byte[] description = null;
+    if (event.getDescription() != null) {
+      presence |= DESCRIPTION;
+      description = utf8(event.getDescription(), "Description");
+      size += 2 + description.length;
+    }
+
+    boolean extended = (presence & ~0xFF) != 0;
+    ByteBuffer buffer = ByteBuffer.allocate(extended ? size + 1 : size);
+    if (extended) {
+      buffer.put(VERSION);
+      buffer.putShort((short) presence);
+    } else {
+      buffer.put(VERSION_1);
+      buffer.put((byte) presence);
+    }
+    if ((presence & PAYMENT_ID) != 0) {
+      putUuid(buffer, event.getPaymentId());
+    }
+    if ((presence & USER_ID) != 0) {
+      putUuid(buffer, event.getUserId());
+    }
+    if (amount != null) {
+      buffer.putLong(amount.minorUnits());
+      buffer.put((byte) amount.scale());
+      String currency = amount.currencyCode();
+      for (int i = 0; i < 3; i++) {
+        buffer.put((byte) currency.charAt(i));
+      }
+    }
+    if ((presence & EVENT_TYPE) != 0) {
+      buffer.put((byte) event.getEventType().ordinal());
+    }
+    if ((presence & STATUS) != 0) {
+      buffer.put((byte) event.getStatus().ordinal());
+    }
+    if ((presence & TIMESTAMP) != 0) {
+      buffer.putLong(event.getTimestamp().toEpochMilli());
+    }
+    if (message != null) {
+      buffer.putShort((short) message.length);
+      buffer.put(message);
+    }
+    if (receiverId != null) {
+      buffer.putShort((short) receiverId.length);
+      buffer.put(receiverId);
+    }
+    if (description != null) {
+      buffer.putShort((short) description.length);
+      buffer.put(description);
+    }
+    return buffer.array();
+  }
+
+  public static PaymentEvent decode(byte[] data) {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      byte version = buffer.get();
+      int presence;
+      if (version == VERSION_1) {
+        presence = buffer.get() & 0xFF;
+      } else if (version == VERSION) {
+        presence = buffer.getShort() & 0xFFFF;
+      } else {
+        throw new IllegalArgumentException("Unsupported payment event version: " + version);
+      }
+
+      PaymentEvent event = new PaymentEvent();
+      if ((presence & PAYMENT_ID) != 0) {
+        event.setPaymentId(new UUID(buffer.getLong(), buffer.getLong()));
+      }
+      if ((presence & USER_ID) != 0) {
+        event.setUserId(new UUID(buffer.getLong(), buffer.getLong()));
+      }
+      long unscaled = 0;
+      int scale = 0;
+      if ((presence & AMOUNT) != 0) {
+        unscaled = buffer.getLong();
+        scale = buffer.get();
+      }
+      if ((presence & CURRENCY) != 0) {
+        Currency currency = Money.currency(new String(data, buffer.position(), 3, StandardCharsets.US_ASCII));
+        buffer.position(buffer.position() + 3);
+        if ((presence & AMOUNT) != 0) {
+          event.setAmount(scale == currency.getDefaultFractionDigits()
+              ? Money.ofMinor(unscaled, currency)
+              : Money.of(BigDecimal.valueOf(unscaled, scale), currency.getCurrencyCode()));
+        }
+      }
+      if ((presence & EVENT_TYPE) != 0) {
+        event.setEventType(EVENT_TYPES[buffer.get()]);
+      }
+      if ((presence & STATUS) != 0) {
+        event.setStatus(STATUSES[buffer.get()]);
+      }
+      if ((presence & TIMESTAMP) != 0) {
+        event.setTimestamp(Instant.ofEpochMilli(buffer.getLong()));
+      }
+      if ((presence & MESSAGE) != 0) {
+        event.setMessage(getString(buffer, data));
+      }
+      if ((presence & RECEIVER_ID) != 0) {
+        event.setReceiverId(getString(buffer, data));
+      }
+      if ((presence & DESCRIPTION) != 0) {
+        event.setDescription(getString(buffer, data));
+      }
+      return event;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated payment event", e);
+    }
+  }
+
+  private static byte[] utf8(String value, String field) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException(field + " longer than 65535 bytes");
+    }
+    return bytes;
+  }
+
+  private static String getString(ByteBuffer buffer, byte[] data) {
+    int length = buffer.getShort() & 0xFFFF;
+    String value = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  private static void putUuid(ByteBuffer buffer, UUID uuid) {
+    buffer.putLong(uuid.getMostSignificantBits());
+    buffer.putLong(uuid.getLeastSignificantBits());
+  }
+}
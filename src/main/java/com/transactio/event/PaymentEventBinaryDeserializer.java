@@ -0,0 +1,35 @@
+package com.transactio.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka deserializer for {@link PaymentEventBinaryCodec} records. Records that start with
+ * <code>{</code> are handed to a {@link JsonDeserializer}, so a topic holding events written before
+ * the switch to binary can still be consumed.
+ */
+public class PaymentEventBinaryDeserializer implements Deserializer<PaymentEvent> {
+
+  private final JsonDeserializer<PaymentEvent> jsonFallback = new JsonDeserializer<>(PaymentEvent.class, false);
+
+  @Override
+  public PaymentEvent deserialize(String topic, byte[] data) {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+    if (data[0] == '{') {
+      return jsonFallback.deserialize(topic, data);
+    }
+    try {
+      return PaymentEventBinaryCodec.decode(data);
+    } catch (IllegalArgumentException e) {
+      throw new SerializationException("Unable to decode payment event from " + topic, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    jsonFallback.close();
+  }
+}
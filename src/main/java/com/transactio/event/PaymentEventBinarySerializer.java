@@ -0,0 +1,22 @@
+package com.transactio.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing {@link PaymentEventBinaryCodec} records.
+ */
+public class PaymentEventBinarySerializer implements Serializer<PaymentEvent> {
+
+  @Override
+  public byte[] serialize(String topic, PaymentEvent event) {
+    if (event == null) {
+      return null;
+    }
+    try {
+      return PaymentEventBinaryCodec.encode(event);
+    } catch (IllegalArgumentException e) {
+      throw new SerializationException("Unable to encode payment event " + event.getPaymentId(), e);
+    }
+  }
+}
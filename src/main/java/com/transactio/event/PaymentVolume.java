@@ -0,0 +1,42 @@
+package com.transactio.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Number and summed amount (in minor units) of payment events in one aggregation bucket.
+ */
+public record PaymentVolume(long count, long amountMinor) {
+
+  public static final PaymentVolume EMPTY = new PaymentVolume(0, 0);
+
+  public PaymentVolume add(long amountMinor) {
+    return new PaymentVolume(count + 1, this.amountMinor + amountMinor);
+  }
+
+  public PaymentVolume plus(PaymentVolume other) {
+    return new PaymentVolume(count + other.count, amountMinor + other.amountMinor);
+  }
+
+  /** Fixed 16-byte encoding: count and amount as big-endian longs. */
+  public static Serde<PaymentVolume> serde() {
+    Serializer<PaymentVolume> serializer = (topic, volume) -> volume == null ? null
+        : ByteBuffer.allocate(16).putLong(volume.count).putLong(volume.amountMinor).array();
+    Deserializer<PaymentVolume> deserializer = (topic, data) -> {
+      if (data == null) {
+        return null;
+      }
+      if (data.length != 16) {
+        throw new SerializationException("Expected 16 bytes for a payment volume, got " + data.length);
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      return new PaymentVolume(buffer.getLong(), buffer.getLong());
+    };
+    return Serdes.serdeFrom(serializer, deserializer);
+  }
+}
@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when the payment aggregate stores are disabled or not queryable yet (starting or rebalancing).
+ */
+public class AggregatesUnavailableException extends RuntimeException {
+
+  public AggregatesUnavailableException(String message) {
+    super(message);
+  }
+}
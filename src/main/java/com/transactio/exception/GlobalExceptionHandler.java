@@ -1,6 +1,7 @@
 package com.transactio.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -34,6 +35,78 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<Map<String, Object>> handleInvalidCursor(InvalidCursorException ex) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.BAD_REQUEST.value());
+    response.put("error", "Bad Request");
+    response.put("message", ex.getMessage());
+
+    return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidAggregateWindowException.class)
+  public ResponseEntity<Map<String, Object>> handleInvalidAggregateWindow(InvalidAggregateWindowException ex) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.BAD_REQUEST.value());
+    response.put("error", "Bad Request");
+    response.put("message", ex.getMessage());
+
+    return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidIdempotencyKeyException.class)
+  public ResponseEntity<Map<String, Object>> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException ex) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.BAD_REQUEST.value());
+    response.put("error", "Bad Request");
+    response.put("message", ex.getMessage());
+
+    return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.UNPROCESSABLE_ENTITY.value());
+    response.put("error", "Unprocessable Entity");
+    response.put("message", ex.getMessage());
+
+    return new ResponseEntity<>(response, HttpStatus.UNPROCESSABLE_ENTITY);
+  }
+
+  @ExceptionHandler(PaymentRejectedException.class)
+  public ResponseEntity<Map<String, Object>> handlePaymentRejected(PaymentRejectedException ex) {
+    log.warn("Payment rejected: {}", ex.getMessage());
+
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.put("error", "Service Unavailable");
+    response.put("message", ex.getMessage());
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(response);
+  }
+
+  @ExceptionHandler(AggregatesUnavailableException.class)
+  public ResponseEntity<Map<String, Object>> handleAggregatesUnavailable(AggregatesUnavailableException ex) {
+    Map<String, Object> response = new HashMap<>();
+    response.put("timestamp", LocalDateTime.now());
+    response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+    response.put("error", "Service Unavailable");
+    response.put("message", ex.getMessage());
+
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "5")
+        .body(response);
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex) {
     log.error("Runtime exception occurred", ex);
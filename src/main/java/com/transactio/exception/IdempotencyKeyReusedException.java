@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when an {@code Idempotency-Key} is replayed with a different request body.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when a transfer would take an account's balance below zero.
+ */
+public class InsufficientFundsException extends RuntimeException {
+
+  public InsufficientFundsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when an aggregate window cannot be parsed or is longer than the stores retain.
+ */
+public class InvalidAggregateWindowException extends RuntimeException {
+
+  public InvalidAggregateWindowException(String message) {
+    super(message);
+  }
+}
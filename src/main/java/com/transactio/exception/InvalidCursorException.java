@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when a pagination cursor supplied by a client cannot be decoded.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when a fraud rule declines a payment before it is processed.
+ */
+public class PaymentDeclinedException extends RuntimeException {
+
+  public PaymentDeclinedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.transactio.exception;
+
+/**
+ * Thrown when a payment cannot be admitted for processing because the service is at capacity.
+ */
+public class PaymentRejectedException extends RuntimeException {
+
+  public PaymentRejectedException(String message) {
+    super(message);
+  }
+}
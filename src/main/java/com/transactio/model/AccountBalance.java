@@ -0,0 +1,7 @@
+package com.transactio.model;
+
+/**
+ * Snapshot of one row of the {@code accounts} table. The balance is in minor units of the currency.
+ */
+public record AccountBalance(String accountId, String currency, long balanceMinor, long version) {
+}
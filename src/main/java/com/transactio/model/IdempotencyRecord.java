@@ -0,0 +1,34 @@
+package com.transactio.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 255)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body, to detect a key being reused for a different payment
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    private UUID paymentId;
+
+    // PaymentResponse as first returned, replayed verbatim
+    @Column(columnDefinition = "text")
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
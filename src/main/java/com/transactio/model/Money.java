@@ -0,0 +1,140 @@
+package com.transactio.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * An amount as a whole number of minor units (cents for USD, yen for JPY) in an ISO 4217 currency.
+ *
+ * <p>Currencies come from the JDK's fixed ISO 4217 table, so each code resolves to one shared
+ * {@link Currency} instance and carries its number of decimal places. Nothing here allocates a
+ * {@link BigDecimal} except the conversions at the edges ({@link #of}, {@link #toBigDecimal}).
+ *
+ * <p>In JSON a {@code Money} is unwrapped into its owner as {@code "amount": 150.50, "currency": "USD"},
+ * the shape the API and events have always used.
+ */
+@JsonAutoDetect(fieldVisibility = Visibility.NONE, getterVisibility = Visibility.NONE,
+    isGetterVisibility = Visibility.NONE)
+@JsonPropertyOrder({"amount", "currency"})
+public final class Money {
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        decimals(currency);
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the currency is unknown, has no minor unit (e.g. XAU), or
+     *                                  the amount has more decimal places than the currency allows
+     */
+    public static Money of(@JsonProperty("amount") BigDecimal amount, @JsonProperty("currency") String currencyCode) {
+        Currency currency = currency(currencyCode);
+        try {
+            return new Money(amount.movePointRight(decimals(currency)).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(amount.toPlainString() + " is not a valid " + currencyCode + " amount");
+        }
+    }
+
+    @JsonCreator
+    static Money fromJson(@JsonProperty("amount") BigDecimal amount, @JsonProperty("currency") String currencyCode) {
+        // An owner without amount and currency still hands the unwrapped Money an empty object
+        return amount == null && currencyCode == null ? null : of(amount, currencyCode);
+    }
+
+    /** @throws IllegalArgumentException if the code is not an ISO 4217 currency with a minor unit */
+    public static Currency currency(String code) {
+        Currency currency = Currency.getInstance(code);
+        decimals(currency);
+        return currency;
+    }
+
+    private static int decimals(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (digits < 0 || digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Currency " + currency.getCurrencyCode() + " has no minor unit");
+        }
+        return digits;
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Currency currency() {
+        return currency;
+    }
+
+    @JsonProperty("currency")
+    public String currencyCode() {
+        return currency.getCurrencyCode();
+    }
+
+    public int scale() {
+        return currency.getDefaultFractionDigits();
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scale());
+    }
+
+    /** The amount in major units with exactly {@link #scale()} decimals, e.g. {@code 150.50}. */
+    @JsonProperty("amount")
+    @JsonRawValue
+    public String toPlainString() {
+        int scale = scale();
+        if (scale == 0) {
+            return Long.toString(minorUnits);
+        }
+        long factor = POWERS_OF_TEN[scale];
+        long whole = minorUnits / factor;
+        String fraction = Long.toString(Math.abs(minorUnits % factor));
+        StringBuilder text = new StringBuilder(24);
+        if (minorUnits < 0 && whole == 0) {
+            text.append('-');
+        }
+        text.append(whole).append('.');
+        for (int i = fraction.length(); i < scale; i++) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && minorUnits == money.minorUnits && currency == money.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCurrencyCode();
+    }
+}
@@ -0,0 +1,52 @@
+package com.transactio.model;
+
+import com.transactio.event.PaymentEventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+@Entity
+@Table(name = "payment_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    // Pooled sequence (see V4 migration) instead of IDENTITY so inserts can be JDBC-batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_outbox_seq")
+    @SequenceGenerator(name = "payment_outbox_seq", sequenceName = "payment_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30, nullable = false)
+    private PaymentEventType eventType;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+
+    // Another relay owns the row until then (see OutboxRelay)
+    private Instant claimedUntil;
+
+    // Set, together with sentAt, when the payload could not be published at all
+    @Column(columnDefinition = "text")
+    private String error;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -2,44 +2,71 @@ package com.transactio.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Currency;
+import java.util.Optional;
 import java.util.UUID;
 
 @Entity
 @Table(name = "payments")
+// Second-level cache region, used only when transactio.cache.second-level.enabled is set
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "payments")
+@SqlResultSetMapping(name = PaymentView.MAPPING, classes = @ConstructorResult(
+    targetClass = PaymentView.class,
+    columns = {
+        @ColumnResult(name = "id", type = UUID.class),
+        @ColumnResult(name = "amount_minor", type = Long.class),
+        @ColumnResult(name = "currency", type = String.class),
+        @ColumnResult(name = "status", type = String.class),
+        @ColumnResult(name = "created_at", type = Instant.class),
+        @ColumnResult(name = "updated_at", type = Instant.class),
+        @ColumnResult(name = "sender_id", type = String.class),
+        @ColumnResult(name = "receiver_id", type = String.class),
+        @ColumnResult(name = "description", type = String.class)
+    }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Payment {
+public class Payment implements Persistable<UUID> {
 
+    // Assigned with newId() before the payment is saved, so it can be handed out before the commit
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @NotNull(message = "Amount is required")
-    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
-    @Column(precision = 19, scale = 2, nullable = false)
-    private BigDecimal amount;
+    // Stored as two columns; read and written through getAmount()/setAmount(Money)
+    @Positive(message = "Amount must be greater than 0")
+    @Column(name = "amount_minor", nullable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long amountMinor;
 
-    @NotBlank(message = "Currency is required")
-    @Size(min = 3, max = 3, message = "Currency must be a 3-letter ISO code")
+    @NotNull(message = "Currency is required")
     @Column(length = 3, nullable = false)
-    private String currency;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Currency currency;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus status = PaymentStatus.PENDING;
 
     @Column(nullable = false)
-    private LocalDateTime createdAt;
+    private Instant createdAt;
 
     @Column(nullable = false)
-    private LocalDateTime updatedAt;
+    private Instant updatedAt;
 
     @NotBlank(message = "Sender ID is required")
     @Column(nullable = false)
@@ -52,14 +79,64 @@ public class Payment {
     @Size(max = 500)
     private String description;
 
+    // Checked and bumped by every status transition (PaymentTransitionWriter)
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // An assigned id does not tell Spring Data that the payment is new; without this save() would
+    // merge, and SELECT the row before every insert
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    // UUIDv7 (RFC 9562): Unix milliseconds in the top 48 bits, then the version and random bits
+    // from randomUUID(), so the id carries the time its row lands in a created_at partition
+    public static UUID newId() {
+        UUID random = UUID.randomUUID();
+        long msb = System.currentTimeMillis() << 16 | 0x7000 | (random.getMostSignificantBits() & 0x0FFF);
+        return new UUID(msb, random.getLeastSignificantBits());
+    }
+
+    /** When a {@link #newId()} id was issued; empty for the random (version 4) ids of older payments. */
+    public static Optional<Instant> idTimestamp(UUID id) {
+        if (id.version() != 7) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16));
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    public Money getAmount() {
+        return currency == null ? null : Money.ofMinor(amountMinor, currency);
+    }
+
+    public void setAmount(Money amount) {
+        this.amountMinor = amount.minorUnits();
+        this.currency = amount.currency();
+    }
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        // Microseconds, as stored, so the in-memory value still matches the row's (id, created_at) key
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        createdAt = now;
+        updatedAt = now;
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void onPersisted() {
+        persisted = true;
     }
 }
@@ -0,0 +1,31 @@
+package com.transactio.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only row of {@code payments} returned by the listing queries. It is built straight from the
+ * result set through the {@value #MAPPING} result set mapping on {@link Payment}, so listings never
+ * hydrate, snapshot or dirty-check an entity.
+ */
+public record PaymentView(
+    UUID id,
+    Long amountMinor,
+    String currency,
+    String status,
+    Instant createdAt,
+    Instant updatedAt,
+    String senderId,
+    String receiverId,
+    String description) {
+
+    public static final String MAPPING = "PaymentView";
+
+    public Money amount() {
+        return Money.ofMinor(amountMinor, Money.currency(currency));
+    }
+
+    public PaymentStatus paymentStatus() {
+        return PaymentStatus.valueOf(status);
+    }
+}
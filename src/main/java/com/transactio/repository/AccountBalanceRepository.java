@@ -0,0 +1,29 @@
+package com.transactio.repository;
+
+import com.transactio.model.AccountBalance;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Balance storage behind {@link com.transactio.service.AccountLedger}.
+ */
+public interface AccountBalanceRepository {
+
+    /**
+     * One balance change. Debits carry the version the ledger last saw and fail if the row has moved
+     * on; credits ({@code expectedVersion == null}) are unconditional increments that create the
+     * account if needed. The delta is in minor units of the currency.
+     */
+    record BalanceUpdate(String accountId, String currency, long deltaMinor, Long expectedVersion) {
+    }
+
+    Optional<AccountBalance> find(String accountId, String currency);
+
+    /**
+     * Applies all updates in one transaction.
+     *
+     * @return false, with nothing applied, if any debit's expected version did not match
+     */
+    boolean applyAll(List<BalanceUpdate> updates);
+}
@@ -0,0 +1,37 @@
+package com.transactio.repository;
+
+import com.transactio.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Inserts the key unless it exists. If another transaction holds an uncommitted insert of the same
+     * key this blocks until it finishes, and returns 0 if that transaction committed.
+     */
+    @Modifying
+    @Query(value = """
+        insert into idempotency_keys (idempotency_key, request_hash, created_at)
+        values (:key, :requestHash, :createdAt)
+        on conflict do nothing""", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") String requestHash,
+              @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Query("""
+        update IdempotencyRecord r set r.paymentId = :paymentId, r.response = :response
+        where r.idempotencyKey = :key""")
+    int complete(@Param("key") String key, @Param("paymentId") UUID paymentId, @Param("response") String response);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
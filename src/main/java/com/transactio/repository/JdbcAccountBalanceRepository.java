@@ -0,0 +1,104 @@
+package com.transactio.repository;
+
+import com.transactio.model.AccountBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class JdbcAccountBalanceRepository implements AccountBalanceRepository {
+
+    private static final String SELECT_BALANCE = """
+        select account_id, currency, balance_minor, version from accounts
+        where account_id = ? and currency = ?""";
+
+    private static final String DEBIT = """
+        update accounts set balance_minor = balance_minor + ?, version = version + 1, updated_at = ?
+        where account_id = ? and currency = ? and version = ?""";
+
+    private static final String CREDIT = """
+        insert into accounts (account_id, currency, balance_minor, version, updated_at)
+        values (?, ?, ?, 0, ?)
+        on conflict (account_id, currency) do update
+        set balance_minor = accounts.balance_minor + excluded.balance_minor, updated_at = excluded.updated_at""";
+
+    private static final Comparator<BalanceUpdate> LOCK_ORDER =
+        Comparator.comparing(BalanceUpdate::accountId).thenComparing(BalanceUpdate::currency);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public Optional<AccountBalance> find(String accountId, String currency) {
+        return jdbcTemplate.query(SELECT_BALANCE, (rs, rowNum) -> new AccountBalance(
+            rs.getString("account_id"), rs.getString("currency"), rs.getLong("balance_minor"), rs.getLong("version")),
+            accountId, currency).stream().findFirst();
+    }
+
+    @Override
+    public boolean applyAll(List<BalanceUpdate> updates) {
+        if (updates.isEmpty()) {
+            return true;
+        }
+        List<BalanceUpdate> sorted = new ArrayList<>(updates);
+        sorted.sort(LOCK_ORDER);
+        List<BalanceUpdate> debits = new ArrayList<>();
+        List<BalanceUpdate> credits = new ArrayList<>();
+        for (BalanceUpdate update : sorted) {
+            (update.expectedVersion() != null ? debits : credits).add(update);
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+
+        Boolean applied = transactionTemplate.execute(tx -> {
+            // Take every row lock up front in one global order; the debit and credit batches below
+            // then never wait on each other, so concurrent transfers A->B and B->A cannot deadlock
+            lockInOrder(sorted);
+            if (!debits.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(DEBIT, debits, debits.size(), (ps, update) -> {
+                    ps.setLong(1, update.deltaMinor());
+                    ps.setTimestamp(2, now);
+                    ps.setString(3, update.accountId());
+                    ps.setString(4, update.currency());
+                    ps.setLong(5, update.expectedVersion());
+                })[0];
+                for (int count : counts) {
+                    if (count == 0) {
+                        tx.setRollbackOnly();
+                        return false;
+                    }
+                }
+            }
+            if (!credits.isEmpty()) {
+                jdbcTemplate.batchUpdate(CREDIT, credits, credits.size(), (ps, update) -> {
+                    ps.setString(1, update.accountId());
+                    ps.setString(2, update.currency());
+                    ps.setLong(3, update.deltaMinor());
+                    ps.setTimestamp(4, now);
+                });
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(applied);
+    }
+
+    private void lockInOrder(List<BalanceUpdate> sorted) {
+        StringBuilder sql = new StringBuilder("select 1 from accounts where (account_id, currency) in (");
+        Object[] args = new Object[sorted.size() * 2];
+        for (int i = 0; i < sorted.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            args[2 * i] = sorted.get(i).accountId();
+            args[2 * i + 1] = sorted.get(i).currency();
+        }
+        sql.append(") order by account_id, currency for update");
+        jdbcTemplate.queryForList(sql.toString(), Integer.class, args);
+    }
+}
@@ -0,0 +1,49 @@
+package com.transactio.repository;
+
+import com.transactio.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest unsent rows that no relay holds a live claim on, for the current transaction.
+     * Rows locked by another relay instance are skipped rather than waited on, so several nodes can
+     * claim batches in parallel.
+     */
+    @Query(value = """
+        select * from payment_outbox
+        where sent_at is null
+          and (claimed_until is null or claimed_until < :now)
+        order by id
+        limit :limit
+        for update skip locked""", nativeQuery = true)
+    List<OutboxEvent> lockClaimableBatch(@Param("limit") int limit, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update OutboxEvent o set o.claimedUntil = :until where o.id in :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("until") Instant until);
+
+    @Modifying
+    @Query("update OutboxEvent o set o.claimedUntil = null where o.id in :ids")
+    int releaseClaims(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("update OutboxEvent o set o.sentAt = :sentAt where o.id in :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("update OutboxEvent o set o.sentAt = :sentAt, o.error = :error where o.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent o where o.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
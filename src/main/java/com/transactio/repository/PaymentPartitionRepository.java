@@ -0,0 +1,141 @@
+package com.transactio.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * DDL for the monthly partitions of {@code payments} (see {@code V8__Partition_Payments_By_Month.sql}).
+ * Partitions are named {@code payments_YYYY_MM} and cover that calendar month in UTC.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentPartitionRepository {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("uuuu_MM");
+    private static final String NAME_PATTERN = "^payments_[0-9]{4}_[0-9]{2}$";
+
+    // Serialises archiving across instances; any constant distinct from other advisory locks will do
+    private static final long ARCHIVE_LOCK = 0x7472_616e_7361_7263L;
+
+    private static final String ATTACHED_MONTHS = """
+        select c.relname from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'payments'::regclass and not i.inhdetachpending
+          and c.relname ~ '""" + NAME_PATTERN + "'";
+
+    private static final String DETACH_PENDING = """
+        select exists (select 1 from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                       where i.inhparent = 'payments'::regclass and i.inhdetachpending and c.relname = ?)""";
+
+    // Partitions left standalone when a previous run detached them but failed to attach them
+    private static final String ORPHANED_MONTHS = """
+        select c.relname from pg_class c
+        join pg_namespace n on n.oid = c.relnamespace
+        where n.nspname = current_schema() and c.relkind = 'r' and not c.relispartition
+          and c.relname ~ '""" + NAME_PATTERN + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return "payments_" + month.format(SUFFIX);
+    }
+
+    /** Creates any missing partitions from {@code from}'s month through {@code to}'s month. */
+    public int createPartitions(Instant from, Instant to) {
+        Integer created = jdbcTemplate.queryForObject("select create_payment_partitions(?, ?)", Integer.class,
+            Timestamp.from(from), Timestamp.from(to));
+        return created == null ? 0 : created;
+    }
+
+    public List<YearMonth> attachedMonths() {
+        return jdbcTemplate.query(ATTACHED_MONTHS, (rs, rowNum) -> monthOf(rs));
+    }
+
+    public List<YearMonth> orphanedMonths() {
+        return jdbcTemplate.query(ORPHANED_MONTHS, (rs, rowNum) -> monthOf(rs));
+    }
+
+    /** Uses the month's partial index on non-terminal statuses, so it reads nothing for a finished month. */
+    public boolean hasActivePayments(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "select exists (select 1 from " + partitionName(month) + " where status in ('PENDING', 'PROCESSING'))",
+            Boolean.class));
+    }
+
+    /**
+     * Moves a month from {@code payments} to {@code payments_archive} without copying rows.
+     * {@code DETACH ... CONCURRENTLY} only takes a brief lock on {@code payments}, so writes to the
+     * current month carry on, and it leaves the partition bound behind as a CHECK constraint, so the
+     * attach needs no validation scan. Returns false when another instance holds the archive lock.
+     */
+    public boolean archive(YearMonth month) {
+        String partition = partitionName(month);
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            // DETACH ... CONCURRENTLY cannot run inside a transaction block
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                if (!tryLock(statement)) {
+                    return false;
+                }
+                try {
+                    if (isDetachPending(connection, partition)) {
+                        // An earlier concurrent detach was interrupted; it can only be finished
+                        statement.execute("alter table payments detach partition " + partition + " finalize");
+                    } else if (!isOrphaned(connection, partition)) {
+                        statement.execute("alter table payments detach partition " + partition + " concurrently");
+                    }
+                    statement.execute("alter table payments_archive attach partition " + partition
+                        + " for values from ('" + start(month) + "') to ('" + start(month.plusMonths(1)) + "')");
+                    return true;
+                } finally {
+                    statement.execute("select pg_advisory_unlock(" + ARCHIVE_LOCK + ")");
+                }
+            }
+        }));
+    }
+
+    private static boolean tryLock(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("select pg_try_advisory_lock(" + ARCHIVE_LOCK + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static boolean isDetachPending(Connection connection, String partition) throws SQLException {
+        try (var ps = connection.prepareStatement(DETACH_PENDING)) {
+            ps.setString(1, partition);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static boolean isOrphaned(Connection connection, String partition) throws SQLException {
+        try (var ps = connection.prepareStatement(ORPHANED_MONTHS + " and c.relname = ?")) {
+            ps.setString(1, partition);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static YearMonth monthOf(ResultSet rs) throws SQLException {
+        return YearMonth.parse(rs.getString(1).substring("payments_".length()), SUFFIX);
+    }
+}
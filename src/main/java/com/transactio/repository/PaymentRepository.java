@@ -2,20 +2,124 @@ package com.transactio.repository;
 
 import com.transactio.model.Payment;
 import com.transactio.model.PaymentStatus;
+import com.transactio.model.PaymentView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
 
-    List<Payment> findByStatus(PaymentStatus status);
+    // payments is partitioned by month of created_at (V8); a lower bound on created_at lets Postgres
+    // skip the older partitions instead of probing every one of them
+    List<Payment> findByStatusAndCreatedAtGreaterThanEqual(PaymentStatus status, Instant since);
 
     List<Payment> findBySenderId(String senderId);
 
     List<Payment> findByReceiverId(String receiverId);
 
-    List<Payment> findBySenderIdOrReceiverId(String senderId, String receiverId);
-}
\ No newline at end of file
+    /** Payments moved to cold storage by {@code PaymentPartitionMaintenance}. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(value = "select * from payments_archive where id = :id", nativeQuery = true)
+    Optional<Payment> findArchivedById(@Param("id") UUID id);
+
+    // An id alone probes every monthly partition; with the created_at range around the time a
+    // Payment.newId() id was issued, Postgres only opens the partitions that range overlaps
+
+    @Query(value = """
+        select * from payments
+        where id = :id and created_at >= :from and created_at < :to""", nativeQuery = true)
+    Optional<Payment> findByIdCreatedBetween(@Param("id") UUID id, @Param("from") Instant from,
+                                             @Param("to") Instant to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(value = """
+        select * from payments_archive
+        where id = :id and created_at >= :from and created_at < :to""", nativeQuery = true)
+    Optional<Payment> findArchivedByIdCreatedBetween(@Param("id") UUID id, @Param("from") Instant from,
+                                                     @Param("to") Instant to);
+
+    // Keyset pagination on (created_at, id): each page starts strictly after the given position.
+    // Row-value comparisons let Postgres turn the cursor into a single index range scan. Partition
+    // pruning does not look inside row comparisons, so each query repeats the created_at bound on
+    // its own to skip the months before the cursor.
+    // Rows come back as PaymentView records rather than managed entities.
+
+    @NativeQuery(sqlResultSetMapping = PaymentView.MAPPING, value = """
+        select * from payments
+        where created_at >= :createdAt and (created_at, id) > (:createdAt, :id)
+        order by created_at, id
+        limit :limit""")
+    List<PaymentView> findPageAfter(@Param("createdAt") Instant createdAt, @Param("id") UUID id,
+                                    @Param("limit") int limit);
+
+    @NativeQuery(sqlResultSetMapping = PaymentView.MAPPING, value = """
+        select * from payments
+        where status = :#{#status.name()} and created_at >= :createdAt and (created_at, id) > (:createdAt, :id)
+        order by created_at, id
+        limit :limit""")
+    List<PaymentView> findPageByStatusAfter(@Param("status") PaymentStatus status,
+                                            @Param("createdAt") Instant createdAt, @Param("id") UUID id,
+                                            @Param("limit") int limit);
+
+    /**
+     * Sender and receiver sides are separate index range scans merged with UNION ALL; an OR across
+     * the two columns cannot use either index. Self-payments are only taken from the sender side.
+     */
+    @NativeQuery(sqlResultSetMapping = PaymentView.MAPPING, value = """
+        select * from (
+            (select * from payments
+             where sender_id = :userId and created_at >= :createdAt and (created_at, id) > (:createdAt, :id)
+             order by created_at, id
+             limit :limit)
+            union all
+            (select * from payments
+             where receiver_id = :userId and sender_id <> :userId
+               and created_at >= :createdAt and (created_at, id) > (:createdAt, :id)
+             order by created_at, id
+             limit :limit)
+        ) u
+        order by created_at, id
+        limit :limit""")
+    List<PaymentView> findPageForUserAfter(@Param("userId") String userId,
+                                           @Param("createdAt") Instant createdAt, @Param("id") UUID id,
+                                           @Param("limit") int limit);
+
+    // Streaming variants for exports; callers must consume them inside a transaction and close them
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Payment p order by p.createdAt, p.id")
+    Stream<Payment> streamAll();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Payment p where p.status = :status order by p.createdAt, p.id")
+    Stream<Payment> streamByStatus(@Param("status") PaymentStatus status);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = """
+        select * from payments where sender_id = :userId
+        union all
+        select * from payments where receiver_id = :userId and sender_id <> :userId
+        order by created_at, id""", nativeQuery = true)
+    Stream<Payment> streamForUser(@Param("userId") String userId);
+}
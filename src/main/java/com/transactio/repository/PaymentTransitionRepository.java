@@ -0,0 +1,73 @@
+package com.transactio.repository;
+
+import com.transactio.model.PaymentStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class PaymentTransitionRepository {
+
+    public record PaymentState(PaymentStatus status, long version) {
+    }
+
+    public record StatusTransition(UUID id, Instant createdAt, PaymentStatus status, Instant updatedAt,
+                                   long expectedVersion) {
+    }
+
+    private static final String UPDATE = """
+        update payments p
+        set status = v.status, updated_at = v.updated_at, version = p.version + 1
+        from (values %s) as v (id, created_at, status, updated_at, version)
+        where p.id = v.id and p.created_at = v.created_at and p.version = v.version
+        returning p.id""";
+
+    private static final String SELECT_STATE = """
+        select status, version from payments where id = ? and created_at = ?""";
+
+    private static final String ROW = "(?::uuid, ?::timestamptz, ?, ?::timestamptz, ?::bigint)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies every transition whose expected version still matches in a single statement and
+     * returns the IDs that were updated; the rest were changed by another writer. Joining on
+     * {@code (id, created_at)} uses the primary key of each monthly partition.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<UUID> applyAll(List<StatusTransition> transitions) {
+        if (transitions.isEmpty()) {
+            return Set.of();
+        }
+        StringBuilder rows = new StringBuilder();
+        Object[] args = new Object[transitions.size() * 5];
+        for (int i = 0; i < transitions.size(); i++) {
+            StatusTransition transition = transitions.get(i);
+            rows.append(i == 0 ? ROW : ", " + ROW);
+            args[5 * i] = transition.id();
+            args[5 * i + 1] = Timestamp.from(transition.createdAt());
+            args[5 * i + 2] = transition.status().name();
+            args[5 * i + 3] = Timestamp.from(transition.updatedAt());
+            args[5 * i + 4] = transition.expectedVersion();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(UPDATE.formatted(rows), UUID.class, args));
+    }
+
+    /** Current status and version of a payment, read from the database rather than any cache. */
+    public Optional<PaymentState> findState(UUID id, Instant createdAt) {
+        return jdbcTemplate.query(SELECT_STATE, (rs, rowNum) -> new PaymentState(
+            PaymentStatus.valueOf(rs.getString("status")), rs.getLong("version")),
+            id, Timestamp.from(createdAt)).stream().findFirst();
+    }
+}
@@ -0,0 +1,280 @@
+package com.transactio.service;
+
+import com.transactio.exception.InsufficientFundsException;
+import com.transactio.model.AccountBalance;
+import com.transactio.model.Money;
+import com.transactio.repository.AccountBalanceRepository;
+import com.transactio.repository.AccountBalanceRepository.BalanceUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves money between accounts without a global lock.
+ *
+ * <p>Accounts are hashed onto a fixed number of shards. Each shard is a lane: a lock-free queue of
+ * transfers drained by at most one virtual thread at a time, so debits from accounts in the same
+ * shard are applied strictly in order and no two threads ever compete for the same account. A
+ * drain takes everything queued (up to {@code max-batch}), checks each debit against the lane's
+ * cached balance, and writes the net change per account in one batched transaction.
+ *
+ * <p>Only debits are sequenced. Credits are commutative, so they are sent to the database as
+ * increments in the same transaction as the debit and never enter the receiver's lane; no lane ever
+ * waits on another, which keeps two-account transfers deadlock-free in memory. Debits carry the
+ * version the lane last read, so a concurrent writer on another node is detected, the cache is
+ * reloaded and the batch retried.
+ *
+ * <p>Amounts and balances are whole minor units of the currency, as in {@link Money}.
+ */
+@Slf4j
+@Component
+public class AccountLedger {
+
+    private record AccountKey(String accountId, String currency) {
+    }
+
+    // A reversal undoes a committed transfer, so it is applied even if it leaves the balance negative
+    private record Transfer(AccountKey from, AccountKey to, long amountMinor, boolean reversal,
+                            CompletableFuture<Void> result) {
+    }
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AccountBalanceRepository balanceRepository;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final Lane[] lanes;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("ledger-lane-", 0).factory());
+    private final DistributionSummary batchSize;
+    private final Counter conflicts;
+    private final Counter insufficientFunds;
+
+    public AccountLedger(
+        AccountBalanceRepository balanceRepository,
+        @Value("${transactio.ledger.enabled:false}") boolean enabled,
+        @Value("${transactio.ledger.shards:64}") int shards,
+        @Value("${transactio.ledger.max-batch:256}") int maxBatch,
+        MeterRegistry meterRegistry) {
+        this.balanceRepository = balanceRepository;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.lanes = new Lane[shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+        this.batchSize = DistributionSummary.builder("transactio.ledger.batch.size")
+            .description("Transfers written per ledger flush")
+            .register(meterRegistry);
+        this.conflicts = Counter.builder("transactio.ledger.conflicts")
+            .description("Ledger flushes retried after a version conflict")
+            .register(meterRegistry);
+        this.insufficientFunds = Counter.builder("transactio.ledger.insufficient.funds")
+            .description("Transfers rejected for insufficient balance")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a transfer on the sender's lane. The future completes once the debit and credit are
+     * committed, or exceptionally with {@link InsufficientFundsException} or
+     * {@link OptimisticLockingFailureException}.
+     */
+    public CompletableFuture<Void> transfer(String fromAccount, String toAccount, Money amount) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(fromAccount, toAccount, amount, false);
+    }
+
+    /**
+     * Undoes a committed {@link #transfer}: debits {@code toAccount} and credits {@code fromAccount}
+     * without a funds check, sequenced on the receiver's lane like any other debit of that account.
+     * Used when the payment that moved the money could not be marked COMPLETED.
+     */
+    public CompletableFuture<Void> reverse(String fromAccount, String toAccount, Money amount) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(toAccount, fromAccount, amount, true);
+    }
+
+    private CompletableFuture<Void> submit(String fromAccount, String toAccount, Money amount, boolean reversal) {
+        String currency = amount.currencyCode();
+        AccountKey from = new AccountKey(fromAccount, currency);
+        Transfer transfer = new Transfer(from, new AccountKey(toAccount, currency), amount.minorUnits(), reversal,
+            new CompletableFuture<>());
+        lanes[spread(from.hashCode()) & (lanes.length - 1)].submit(transfer);
+        return transfer.result();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    private final class Lane implements Runnable {
+
+        private final ConcurrentLinkedQueue<Transfer> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Only read or written by the thread that won 'scheduled'; the CAS orders successive drainers
+        private final Map<AccountKey, AccountBalance> balances = new HashMap<>();
+
+        void submit(Transfer transfer) {
+            queue.offer(transfer);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Transfer> batch = drain();
+                while (!batch.isEmpty()) {
+                    try {
+                        process(batch);
+                    } catch (RuntimeException e) {
+                        abort(batch, e);
+                    }
+                    batch = drain();
+                }
+            } finally {
+                scheduled.set(false);
+                // A transfer offered after our last drain but before the reset would otherwise strand
+                if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this);
+                }
+            }
+        }
+
+        private List<Transfer> drain() {
+            List<Transfer> batch = new ArrayList<>();
+            Transfer transfer;
+            while (batch.size() < maxBatch && (transfer = queue.poll()) != null) {
+                batch.add(transfer);
+            }
+            return batch;
+        }
+
+        private void process(List<Transfer> batch) {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                Map<AccountKey, Long> available = new HashMap<>();
+                Map<AccountKey, Long> debits = new LinkedHashMap<>();
+                Map<AccountKey, Long> credits = new LinkedHashMap<>();
+                Set<AccountKey> refreshed = new HashSet<>();
+                List<Transfer> accepted = new ArrayList<>(batch.size());
+                List<Transfer> rejected = new ArrayList<>();
+
+                for (Transfer transfer : batch) {
+                    long balance = available.computeIfAbsent(transfer.from(), key -> balance(key).balanceMinor());
+                    if (!transfer.reversal() && balance < transfer.amountMinor() && refreshed.add(transfer.from())) {
+                        // Credits from other lanes only reach the database, so the cache can be low
+                        balances.remove(transfer.from());
+                        long pending = debits.getOrDefault(transfer.from(), 0L);
+                        balance = balance(transfer.from()).balanceMinor() - pending;
+                        available.put(transfer.from(), balance);
+                    }
+                    if (!transfer.reversal() && balance < transfer.amountMinor()) {
+                        rejected.add(transfer);
+                        continue;
+                    }
+                    available.put(transfer.from(), balance - transfer.amountMinor());
+                    debits.merge(transfer.from(), transfer.amountMinor(), Long::sum);
+                    credits.merge(transfer.to(), transfer.amountMinor(), Long::sum);
+                    accepted.add(transfer);
+                }
+
+                if (flush(debits, credits)) {
+                    batchSize.record(accepted.size());
+                    accepted.forEach(transfer -> transfer.result().complete(null));
+                    for (Transfer transfer : rejected) {
+                        insufficientFunds.increment();
+                        transfer.result().completeExceptionally(new InsufficientFundsException(
+                            "Insufficient funds in account " + transfer.from().accountId()));
+                    }
+                    return;
+                }
+
+                conflicts.increment();
+                debits.keySet().forEach(balances::remove);
+                log.debug("Ledger version conflict on {} accounts, attempt {}", debits.size(), attempt);
+            }
+
+            OptimisticLockingFailureException failure =
+                new OptimisticLockingFailureException("Account balances kept changing concurrently, retry the transfer");
+            batch.forEach(transfer -> transfer.result().completeExceptionally(failure));
+        }
+
+        /**
+         * Fails every transfer in the batch that is still open, so no caller waits forever, and drops
+         * the cached balances involved; whether the failed write committed is unknown, so they are
+         * read again on next use.
+         */
+        private void abort(List<Transfer> batch, RuntimeException cause) {
+            log.error("Ledger flush of {} transfers failed", batch.size(), cause);
+            for (Transfer transfer : batch) {
+                balances.remove(transfer.from());
+                balances.remove(transfer.to());
+                transfer.result().completeExceptionally(cause);
+            }
+        }
+
+        private boolean flush(Map<AccountKey, Long> debits, Map<AccountKey, Long> credits) {
+            List<BalanceUpdate> updates = new ArrayList<>(debits.size() + credits.size());
+            debits.forEach((key, amount) -> updates.add(
+                new BalanceUpdate(key.accountId(), key.currency(), -amount, balances.get(key).version())));
+            credits.forEach((key, amount) -> updates.add(
+                new BalanceUpdate(key.accountId(), key.currency(), amount, null)));
+
+            try {
+                if (!balanceRepository.applyAll(updates)) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                debits.keySet().forEach(balances::remove);
+                throw e;
+            }
+
+            debits.forEach((key, amount) -> {
+                AccountBalance current = balances.get(key);
+                balances.put(key, new AccountBalance(key.accountId(), key.currency(),
+                    current.balanceMinor() - amount, current.version() + 1));
+            });
+            // Credits to accounts cached in this lane are applied too; others are not ours to touch
+            credits.forEach((key, amount) -> balances.computeIfPresent(key, (k, current) -> new AccountBalance(
+                k.accountId(), k.currency(), current.balanceMinor() + amount, current.version())));
+            return true;
+        }
+
+        private AccountBalance balance(AccountKey key) {
+            return balances.computeIfAbsent(key, k -> balanceRepository.find(k.accountId(), k.currency())
+                .orElse(new AccountBalance(k.accountId(), k.currency(), 0L, 0L)));
+        }
+    }
+}
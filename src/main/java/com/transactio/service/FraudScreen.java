@@ -0,0 +1,280 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.exception.PaymentDeclinedException;
+import com.transactio.model.Money;
+import com.transactio.model.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fraud-rule stage run between PENDING and PROCESSING.
+ *
+ * <p>Rules are read from {@code transactio.fraud.rules} (JSON) and compiled into per-currency
+ * arrays of amount limits and blocked currencies, with amounts converted to minor units once, and
+ * per-window velocity limits backed by a {@link SlidingWindowCounter} keyed by a 64-bit hash of the
+ * sender. Evaluating a payment is a few array scans and one CAS per velocity window, with no
+ * allocation. The file is checked every {@code reload-interval-ms} and recompiled when it changes;
+ * velocity counters for windows that are still configured carry over. A file that fails to load
+ * leaves the previous rules in place.
+ *
+ * <p>A rule's {@code action} is {@code decline} (the payment fails) or {@code flag} (only counted in
+ * {@code transactio.fraud.rule.hits}), so a new rule can be watched before it is enforced.
+ */
+@Slf4j
+@Component
+public class FraudScreen {
+
+    private record RuleFile(List<RuleDefinition> rules) {
+    }
+
+    private record RuleDefinition(String name, String type, String action, String currency, BigDecimal amount,
+                                  List<String> currencies, String window, Integer max) {
+    }
+
+    private record Hit(String name, boolean decline, Counter counter) {
+    }
+
+    private record AmountLimit(Hit hit, long maxMinorUnits) {
+    }
+
+    private record VelocityLimit(Hit hit, int max) {
+    }
+
+    private record Window(SlidingWindowCounter counter, VelocityLimit[] limits) {
+    }
+
+    private record Rules(int size, long lastModified, Map<Currency, AmountLimit[]> amountLimits,
+                         Map<Currency, Hit[]> blockedCurrencies, Window[] windows) {
+    }
+
+    private static final Rules NONE = new Rules(0, -1, Map.of(), Map.of(), new Window[0]);
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Resource location;
+    private final boolean enabled;
+    private final int capacity;
+    private final int buckets;
+    private volatile Rules rules = NONE;
+    // Modification time of a file that failed to load, so it is not retried until it changes again
+    private volatile long failedLastModified = -1;
+
+    public FraudScreen(
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${transactio.fraud.rules:classpath:fraud-rules.json}") Resource location,
+        @Value("${transactio.fraud.enabled:true}") boolean enabled,
+        @Value("${transactio.fraud.velocity.capacity:131072}") int capacity,
+        @Value("${transactio.fraud.velocity.buckets:10}") int buckets) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.location = location;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.buckets = buckets;
+
+        FunctionCounter.builder("transactio.fraud.velocity.untracked", this, FraudScreen::untracked)
+            .description("Payments whose sender could not be tracked because the velocity table was full")
+            .register(meterRegistry);
+        if (enabled) {
+            this.rules = load(NONE);
+            log.info("Loaded {} fraud rules from {}", rules.size(), location);
+        }
+    }
+
+    /**
+     * @throws PaymentDeclinedException if a {@code decline} rule matches
+     */
+    public void screen(Payment payment) {
+        if (!enabled) {
+            return;
+        }
+        String declinedBy = evaluate(payment.getSenderId(), payment.getAmount(), System.currentTimeMillis());
+        if (declinedBy != null) {
+            throw new PaymentDeclinedException("Declined by fraud rule '" + declinedBy + "'");
+        }
+    }
+
+    /**
+     * Evaluates every rule and records the payment in each velocity window. Returns the name of the
+     * first {@code decline} rule that matched, or null.
+     */
+    String evaluate(String senderId, Money amount, long nowMillis) {
+        Rules current = rules;
+        String declinedBy = null;
+
+        AmountLimit[] limits = current.amountLimits().get(amount.currency());
+        if (limits != null) {
+            for (AmountLimit limit : limits) {
+                if (amount.minorUnits() > limit.maxMinorUnits()) {
+                    declinedBy = hit(limit.hit(), declinedBy, senderId);
+                }
+            }
+        }
+        Hit[] blocked = current.blockedCurrencies().get(amount.currency());
+        if (blocked != null) {
+            for (Hit hit : blocked) {
+                declinedBy = hit(hit, declinedBy, senderId);
+            }
+        }
+        if (current.windows().length > 0) {
+            long key = senderKey(senderId);
+            for (Window window : current.windows()) {
+                int count = window.counter().record(key, nowMillis);
+                for (VelocityLimit limit : window.limits()) {
+                    if (count > limit.max()) {
+                        declinedBy = hit(limit.hit(), declinedBy, senderId);
+                    }
+                }
+            }
+        }
+        return declinedBy;
+    }
+
+    private static String hit(Hit hit, String declinedBy, String senderId) {
+        hit.counter().increment();
+        if (!hit.decline()) {
+            log.debug("Fraud rule {} flagged a payment from {}", hit.name(), senderId);
+            return declinedBy;
+        }
+        return declinedBy != null ? declinedBy : hit.name();
+    }
+
+    @Scheduled(fixedDelayString = "${transactio.fraud.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        if (!enabled) {
+            return;
+        }
+        Rules current = rules;
+        long modified;
+        try {
+            modified = location.lastModified();
+        } catch (IOException e) {
+            // Not a file-backed resource; nothing to watch
+            return;
+        }
+        if (modified == current.lastModified() || modified == failedLastModified) {
+            return;
+        }
+        Rules reloaded = load(current);
+        if (reloaded == current) {
+            failedLastModified = modified;
+        } else {
+            rules = reloaded;
+            log.info("Reloaded {} fraud rules from {}", reloaded.size(), location);
+        }
+    }
+
+    private Rules load(Rules previous) {
+        try (InputStream in = location.getInputStream()) {
+            long lastModified = lastModified();
+            RuleFile file = objectMapper.readValue(in, RuleFile.class);
+            return compile(file, lastModified, previous);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not load fraud rules from {}; keeping the previous rules", location, e);
+            return previous;
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return location.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Rules compile(RuleFile file, long lastModified, Rules previous) {
+        Map<Currency, List<AmountLimit>> amountLimits = new HashMap<>();
+        Map<Currency, List<Hit>> blockedCurrencies = new HashMap<>();
+        Map<Duration, List<VelocityLimit>> velocityLimits = new LinkedHashMap<>();
+
+        List<RuleDefinition> definitions = file.rules() == null ? List.of() : file.rules();
+        for (RuleDefinition rule : definitions) {
+            if (rule.name() == null || rule.type() == null) {
+                throw new IllegalArgumentException("Fraud rule without a name or type: " + rule);
+            }
+            Hit hit = hit(rule);
+            switch (rule.type()) {
+                case "max-amount" -> {
+                    Money max = Money.of(rule.amount(), rule.currency());
+                    amountLimits.computeIfAbsent(max.currency(), c -> new ArrayList<>())
+                        .add(new AmountLimit(hit, max.minorUnits()));
+                }
+                case "blocked-currency" -> {
+                    for (String code : rule.currencies()) {
+                        blockedCurrencies.computeIfAbsent(Money.currency(code), c -> new ArrayList<>()).add(hit);
+                    }
+                }
+                case "velocity" -> velocityLimits
+                    .computeIfAbsent(DurationStyle.detectAndParse(rule.window()), w -> new ArrayList<>())
+                    .add(new VelocityLimit(hit, rule.max()));
+                default -> throw new IllegalArgumentException("Unknown fraud rule type: " + rule.type());
+            }
+        }
+
+        Map<Duration, SlidingWindowCounter> counters = new HashMap<>();
+        for (Window window : previous.windows()) {
+            counters.put(window.counter().window(), window.counter());
+        }
+        long origin = System.currentTimeMillis();
+        List<Window> windows = new ArrayList<>();
+        velocityLimits.forEach((duration, limits) -> windows.add(new Window(
+            counters.computeIfAbsent(duration, d -> new SlidingWindowCounter(d, buckets, capacity, origin)),
+            limits.toArray(VelocityLimit[]::new))));
+
+        Map<Currency, AmountLimit[]> compiledLimits = new HashMap<>();
+        amountLimits.forEach((currency, list) -> compiledLimits.put(currency, list.toArray(AmountLimit[]::new)));
+        Map<Currency, Hit[]> compiledBlocked = new HashMap<>();
+        blockedCurrencies.forEach((currency, list) -> compiledBlocked.put(currency, list.toArray(Hit[]::new)));
+        return new Rules(definitions.size(), lastModified, Map.copyOf(compiledLimits), Map.copyOf(compiledBlocked),
+            windows.toArray(Window[]::new));
+    }
+
+    private Hit hit(RuleDefinition rule) {
+        boolean decline = !"flag".equalsIgnoreCase(rule.action());
+        Counter counter = Counter.builder("transactio.fraud.rule.hits")
+            .description("Payments matched by a fraud rule")
+            .tag("rule", rule.name())
+            .tag("action", decline ? "decline" : "flag")
+            .register(meterRegistry);
+        return new Hit(rule.name(), decline, counter);
+    }
+
+    private double untracked() {
+        long total = 0;
+        for (Window window : rules.windows()) {
+            total += window.counter().overflows();
+        }
+        return total;
+    }
+
+    /** 64-bit FNV-1a of the sender ID; 0 marks a free slot in the counters, so it is remapped. */
+    static long senderKey(String senderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < senderId.length(); i++) {
+            hash ^= senderId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,194 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.transactio.dto.PaymentRequest;
+import com.transactio.dto.PaymentResponse;
+import com.transactio.exception.IdempotencyKeyReusedException;
+import com.transactio.exception.InvalidIdempotencyKeyException;
+import com.transactio.model.IdempotencyRecord;
+import com.transactio.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes {@code POST /api/v1/payments} safe to retry under an {@code Idempotency-Key}.
+ *
+ * <p>Two tiers back each key. A bounded in-memory map holds one future per key for the hot window,
+ * so concurrent duplicates on this node wait for the first request instead of running their own.
+ * The {@code idempotency_keys} table is the durable record: the key is claimed in the same
+ * transaction that creates the payment, so duplicates arriving on other nodes either block on that
+ * claim or find the committed response.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public record Result(PaymentResponse response, boolean replayed) {
+    }
+
+    private record Entry(String requestHash, CompletableFuture<PaymentResponse> response) {
+    }
+
+    /** Signals that another transaction committed the key first; rolls back our attempt. */
+    private static class KeyTakenException extends RuntimeException {
+    }
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final PaymentService paymentService;
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> hot;
+
+    @Value("${transactio.idempotency.wait-timeout:30s}")
+    private Duration waitTimeout;
+
+    @Value("${transactio.idempotency.retention:24h}")
+    private Duration retention;
+
+    public IdempotencyService(PaymentService paymentService,
+                              IdempotencyRecordRepository recordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${transactio.idempotency.hot-ttl:10m}") Duration hotTtl,
+                              @Value("${transactio.idempotency.hot-maximum-size:100000}") long hotMaximumSize) {
+        this.paymentService = paymentService;
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.hot = Caffeine.newBuilder()
+            .expireAfterWrite(hotTtl)
+            .maximumSize(hotMaximumSize)
+            .build();
+    }
+
+    public Result createPayment(String key, PaymentRequest request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+
+        Entry mine = new Entry(requestHash, new CompletableFuture<>());
+        Entry existing = hot.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            checkSameRequest(key, existing.requestHash(), requestHash);
+            return new Result(await(existing.response()), true);
+        }
+
+        try {
+            Result result = execute(key, requestHash, request);
+            mine.response().complete(result.response());
+            return result;
+        } catch (RuntimeException e) {
+            // Let a later retry run again rather than replaying the failure
+            hot.invalidate(key);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Result execute(String key, String requestHash, PaymentRequest request) {
+        PaymentResponse stored = findStored(key, requestHash);
+        if (stored != null) {
+            return new Result(stored, true);
+        }
+
+        try {
+            PaymentResponse response = transactionTemplate.execute(tx -> {
+                if (recordRepository.claim(key, requestHash, Instant.now()) == 0) {
+                    throw new KeyTakenException();
+                }
+                PaymentResponse created = paymentService.createPayment(request);
+                recordRepository.complete(key, created.getId(), toJson(created));
+                return created;
+            });
+            return new Result(response, false);
+        } catch (KeyTakenException e) {
+            log.debug("Idempotency-Key {} was committed concurrently, replaying", key);
+            return new Result(findStored(key, requestHash), true);
+        }
+    }
+
+    private PaymentResponse findStored(String key, String requestHash) {
+        IdempotencyRecord record = recordRepository.findById(key).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        checkSameRequest(key, record.getRequestHash(), requestHash);
+        try {
+            return objectMapper.readValue(record.getResponse(), PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt idempotency record for key " + key, e);
+        }
+    }
+
+    private PaymentResponse await(CompletableFuture<PaymentResponse> response) {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for the original request with the same Idempotency-Key");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the original request", e);
+        }
+    }
+
+    private static void checkSameRequest(String key, String expectedHash, String actualHash) {
+        if (!expectedHash.equals(actualHash)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key " + key + " was already used with a different request");
+        }
+    }
+
+    private String toJson(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize payment response", e);
+        }
+    }
+
+    private static String hash(PaymentRequest request) {
+        String amount = request.getAmount() == null ? null : request.getAmount().stripTrailingZeros().toPlainString();
+        String canonical = amount + "|" + request.getCurrency() + "|" + request.getSenderId()
+            + "|" + request.getReceiverId() + "|" + request.getDescription();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(cron = "${transactio.idempotency.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = recordRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
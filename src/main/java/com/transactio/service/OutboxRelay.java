@@ -0,0 +1,160 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.event.PaymentEvent;
+import com.transactio.model.OutboxEvent;
+import com.transactio.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox rows to Kafka in batches, without holding a transaction while it waits on Kafka.
+ * Each poll claims a batch in a short transaction: the rows are locked with {@code SKIP LOCKED} and
+ * stamped with {@code claimed_until}, so other relays skip them once the locks are gone. The records
+ * are then handed to the producer before waiting on any of them so they share producer batches, and
+ * a second short transaction marks the acknowledged rows sent and releases the claim on the rest,
+ * which are picked up again on the next poll. A row whose payload cannot be read would fail the same
+ * way on every poll, so it is marked sent with the error instead and the rest of the batch goes out.
+ *
+ * <p>If a relay stops between the two transactions, its claim expires after
+ * {@code transactio.outbox.claim-timeout} and the rows are published again, so delivery stays
+ * at-least-once. Events of one payment are published in outbox order only within a claimed batch:
+ * relays on different nodes publish their batches concurrently, and a row whose send failed is
+ * retried after later rows of its batch went out.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, PaymentEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer publishLag;
+
+    @Value("${spring.kafka.topic.payment-events}")
+    private String paymentEventsTopic;
+
+    @Value("${transactio.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transactio.outbox.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Value("${transactio.outbox.claim-timeout:30s}")
+    private Duration claimTimeout;
+
+    @Value("${transactio.outbox.retention:1d}")
+    private Duration retention;
+
+    public OutboxRelay(
+        OutboxEventRepository outboxRepository,
+        KafkaTemplate<String, PaymentEvent> kafkaTemplate,
+        ObjectMapper objectMapper,
+        TransactionTemplate transactionTemplate,
+        MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.publishLag = Timer.builder("transactio.outbox.publish.lag")
+            .description("Time from an outbox row being written to its acknowledgement by Kafka")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transactio.outbox.poll-interval-ms:200}")
+    public void relay() {
+        List<OutboxEvent> batch = transactionTemplate.execute(tx -> claimBatch());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> corrupt = new LinkedHashMap<>();
+        List<OutboxEvent> publishing = new ArrayList<>(batch.size());
+        List<CompletableFuture<SendResult<String, PaymentEvent>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent row : batch) {
+            PaymentEvent event;
+            try {
+                event = objectMapper.readValue(row.getPayload(), PaymentEvent.class);
+            } catch (JsonProcessingException e) {
+                log.error("Corrupt outbox payload for event {} of payment {}, skipping it",
+                    row.getId(), row.getAggregateId(), e);
+                corrupt.put(row.getId(), e.getOriginalMessage());
+                continue;
+            }
+            publishing.add(row);
+            futures.add(kafkaTemplate.send(paymentEventsTopic, row.getAggregateId().toString(), event));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<Long> sent = new ArrayList<>(publishing.size());
+        List<Long> unsent = new ArrayList<>();
+        for (int i = 0; i < publishing.size(); i++) {
+            OutboxEvent row = publishing.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sent.add(row.getId());
+                publishLag.record(Duration.between(row.getCreatedAt(), Instant.now()));
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("Unable to publish outbox event {} for payment {}, will retry",
+                    row.getId(), row.getAggregateId(), e);
+                unsent.add(row.getId());
+            } catch (InterruptedException e) {
+                // The rows not yet acknowledged keep their claim until it expires
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            Instant now = Instant.now();
+            corrupt.forEach((id, error) -> outboxRepository.markFailed(id, error, now));
+            if (!sent.isEmpty()) {
+                outboxRepository.markSent(sent, now);
+            }
+            if (!unsent.isEmpty()) {
+                outboxRepository.releaseClaims(unsent);
+            }
+        });
+        log.debug("Relayed {}/{} outbox events", sent.size(), batch.size());
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = outboxRepository.lockClaimableBatch(batchSize, now);
+        if (!batch.isEmpty()) {
+            outboxRepository.claim(batch.stream().map(OutboxEvent::getId).toList(), now.plus(claimTimeout));
+        }
+        return batch;
+    }
+
+    @Scheduled(cron = "${transactio.outbox.cleanup-cron:0 0 * * * *}")
+    @Transactional
+    public void purgeSent() {
+        int deleted = outboxRepository.deleteSentBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} sent outbox events", deleted);
+        }
+    }
+}
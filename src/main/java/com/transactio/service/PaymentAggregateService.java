@@ -0,0 +1,144 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentAggregatesResponse;
+import com.transactio.dto.PaymentVolumeResponse;
+import com.transactio.event.PaymentEventType;
+import com.transactio.event.PaymentVolume;
+import com.transactio.exception.AggregatesUnavailableException;
+import com.transactio.exception.InvalidAggregateWindowException;
+import com.transactio.model.Money;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Answers "how many payments, for how much, in the last N minutes" from the window stores filled by
+ * {@code KafkaStreamsConfig}, without touching the database. The requested window is widened to
+ * whole buckets, so {@code from} in the response can be up to one bucket earlier than asked.
+ *
+ * <p>Store keys are {@code currency|eventType} and {@code userId|currency|eventType}; a user's
+ * volumes are one key-range scan over the second store.
+ */
+@Service
+public class PaymentAggregateService {
+
+    public static final String BY_TYPE_STORE = "payment-volume-by-type";
+    public static final String BY_USER_STORE = "payment-volume-by-user";
+
+    private static final char SEPARATOR = '|';
+
+    private final ObjectProvider<StreamsBuilderFactoryBean> streams;
+    private final long bucketMillis;
+    private final Duration retention;
+    private final Duration userRetention;
+
+    public PaymentAggregateService(
+        ObjectProvider<StreamsBuilderFactoryBean> streams,
+        @Value("${transactio.aggregates.bucket:1m}") Duration bucket,
+        @Value("${transactio.aggregates.retention:1h}") Duration retention,
+        @Value("${transactio.aggregates.user-retention:15m}") Duration userRetention) {
+        this.streams = streams;
+        this.bucketMillis = bucket.toMillis();
+        this.retention = retention;
+        this.userRetention = userRetention;
+    }
+
+    public static String typeKey(String currency, PaymentEventType eventType) {
+        return currency + SEPARATOR + eventType.name();
+    }
+
+    public static String userKey(UUID userId, String typeKey) {
+        return userId.toString() + SEPARATOR + typeKey;
+    }
+
+    public PaymentAggregatesResponse volumes(Duration window) {
+        Instant now = Instant.now();
+        Instant from = windowStart(window, retention, now);
+        try (KeyValueIterator<Windowed<String>, PaymentVolume> rows = store(BY_TYPE_STORE).fetchAll(from, now)) {
+            return collect(from, now, rows);
+        } catch (InvalidStateStoreException e) {
+            throw unavailable(e);
+        }
+    }
+
+    public PaymentAggregatesResponse userVolumes(UUID userId, Duration window) {
+        Instant now = Instant.now();
+        Instant from = windowStart(window, userRetention, now);
+        String prefix = userId.toString() + SEPARATOR;
+        try (KeyValueIterator<Windowed<String>, PaymentVolume> rows =
+                 store(BY_USER_STORE).fetch(prefix, prefix + '\uffff', from, now)) {
+            return collect(from, now, rows);
+        } catch (InvalidStateStoreException e) {
+            throw unavailable(e);
+        }
+    }
+
+    private Instant windowStart(Duration window, Duration limit, Instant now) {
+        if (window.isNegative() || window.isZero() || window.compareTo(limit) > 0) {
+            throw new InvalidAggregateWindowException(
+                "Window must be positive and at most " + limit + ", got " + window);
+        }
+        long start = now.toEpochMilli() - window.toMillis();
+        return Instant.ofEpochMilli(start - Math.floorMod(start, bucketMillis));
+    }
+
+    private ReadOnlyWindowStore<String, PaymentVolume> store(String name) {
+        StreamsBuilderFactoryBean factoryBean = streams.getIfAvailable();
+        if (factoryBean == null) {
+            throw new AggregatesUnavailableException("Payment aggregates are not enabled on this node");
+        }
+        KafkaStreams kafkaStreams = factoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            // Not started yet, e.g. deferred until the application is ready
+            throw new AggregatesUnavailableException("Payment aggregates are not started yet");
+        }
+        try {
+            return kafkaStreams.store(StoreQueryParameters.fromNameAndType(name, QueryableStoreTypes.windowStore()));
+        } catch (InvalidStateStoreException e) {
+            throw unavailable(e);
+        }
+    }
+
+    private static AggregatesUnavailableException unavailable(InvalidStateStoreException e) {
+        return new AggregatesUnavailableException("Payment aggregates are not ready: " + e.getMessage());
+    }
+
+    private static PaymentAggregatesResponse collect(Instant from, Instant to,
+                                                     KeyValueIterator<Windowed<String>, PaymentVolume> rows) {
+        // Sum the buckets per currency|eventType, dropping the user prefix if there is one
+        Map<String, PaymentVolume> totals = new TreeMap<>();
+        while (rows.hasNext()) {
+            KeyValue<Windowed<String>, PaymentVolume> row = rows.next();
+            String key = row.key.key();
+            int eventTypeAt = key.lastIndexOf(SEPARATOR);
+            int currencyAt = key.lastIndexOf(SEPARATOR, eventTypeAt - 1);
+            totals.merge(key.substring(currencyAt + 1), row.value, PaymentVolume::plus);
+        }
+        List<PaymentVolumeResponse> volumes = new ArrayList<>(totals.size());
+        totals.forEach((key, volume) -> {
+            int separator = key.indexOf(SEPARATOR);
+            volumes.add(new PaymentVolumeResponse(
+                PaymentEventType.valueOf(key.substring(separator + 1)),
+                volume.count(),
+                Money.ofMinor(volume.amountMinor(), Money.currency(key.substring(0, separator)))));
+        });
+        return new PaymentAggregatesResponse(from, to, volumes);
+    }
+}
@@ -0,0 +1,103 @@
+package com.transactio.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.transactio.dto.PaymentResponse;
+import com.transactio.event.PaymentEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of {@link PaymentResponse} by payment ID, backing
+ * {@link PaymentService#getPaymentById}. Caffeine's W-TinyLFU admission keeps the payments clients
+ * are actively polling and drops one-off lookups first.
+ *
+ * <p>Entries are refreshed locally on every write. Each node also reads {@code payment-events}
+ * under its own consumer group and evicts entries whose status no longer matches, so writes made
+ * on other nodes are not served stale for longer than the event takes to arrive.
+ */
+@Slf4j
+@Component
+public class PaymentCache {
+
+    private final Cache<UUID, PaymentResponse> cache;
+
+    public PaymentCache(
+        @Value("${transactio.cache.payments.enabled:true}") boolean enabled,
+        @Value("${transactio.cache.payments.maximum-size:100000}") long maximumSize,
+        @Value("${transactio.cache.payments.ttl:5m}") Duration ttl,
+        MeterRegistry meterRegistry) {
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "payments");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public PaymentResponse get(UUID id, Function<UUID, PaymentResponse> loader) {
+        return cache == null ? loader.apply(id) : cache.get(id, loader);
+    }
+
+    public void put(PaymentResponse response) {
+        if (cache != null) {
+            cache.put(response.getId(), response);
+        }
+    }
+
+    /**
+     * Caches the response once the current transaction commits, or immediately if there is none,
+     * so a rolled-back payment is never served.
+     */
+    public void putAfterCommit(PaymentResponse response) {
+        if (cache == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(response);
+                }
+            });
+        } else {
+            put(response);
+        }
+    }
+
+    @KafkaListener(
+        topics = "${spring.kafka.topic.payment-events}",
+        groupId = "payment-cache-${random.uuid}",
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "${transactio.cache.payments.enabled:true}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onPaymentEvents(List<ConsumerRecord<String, PaymentEvent>> records) {
+        for (ConsumerRecord<String, PaymentEvent> record : records) {
+            PaymentEvent event = record.value();
+            if (event == null || event.getPaymentId() == null) {
+                continue;
+            }
+            PaymentResponse cached = cache.getIfPresent(event.getPaymentId());
+            if (cached != null && cached.getStatus() != event.getStatus()) {
+                cache.invalidate(event.getPaymentId());
+            }
+        }
+    }
+}
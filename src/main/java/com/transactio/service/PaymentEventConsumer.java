@@ -1,21 +1,119 @@
 package com.transactio.service;
 
+import com.transactio.config.DeferredStartup;
 import com.transactio.event.PaymentEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Service
 public class PaymentEventConsumer {
 
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Timer recordLag;
+
+    public PaymentEventConsumer(MeterRegistry meterRegistry) {
+        this.batchTimer = Timer.builder("transactio.consumer.batch.duration")
+            .description("Time to dispatch notifications for one polled batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("transactio.consumer.batch.size")
+            .description("Records per polled batch")
+            .register(meterRegistry);
+        this.recordLag = Timer.builder("transactio.consumer.record.lag")
+            .description("Time from the record's producer timestamp to its dispatch by this consumer")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Handles one poll worth of events. Events are grouped by record key (the payment ID) and each
+     * group is dispatched on its own virtual thread, so different payments are notified in parallel
+     * while events for the same payment keep their partition order. The method returns only once
+     * every group is done, so offsets are committed after the whole batch is handled.
+     *
+     * <p>If a group fails, the rest of that group is not dispatched and the batch fails with a
+     * {@link BatchListenerFailedException} at the earliest failed record. The error handler then
+     * commits the records before it and redelivers the rest, so events of other payments later in
+     * the batch can be notified twice.
+     *
+     * <p>Notifications are not on the request path, so with {@code transactio.startup.defer-consumers}
+     * the container is started by {@link DeferredStartup} after the application is ready.
+     */
     @KafkaListener(
+        id = DeferredStartup.NOTIFICATIONS_LISTENER,
+        autoStartup = "#{!${transactio.startup.defer-consumers:false}}",
         topics = "${spring.kafka.topic.payment-events}",
         groupId = "${spring.kafka.consumer.group-id.notification}",
         containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handlePaymentEvent(PaymentEvent event) {
-        log.info("Notification Service received event: {}", event);
+    public void handlePaymentEvents(List<ConsumerRecord<String, PaymentEvent>> records) {
+        batchSize.record(records.size());
+        batchTimer.record(() -> dispatch(records));
+    }
+
+    private void dispatch(List<ConsumerRecord<String, PaymentEvent>> records) {
+        // Indexes into records, so a failure can name the record it stopped at
+        Map<String, List<Integer>> byPayment = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, PaymentEvent> record = records.get(i);
+            recordLag.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+            if (record.value() == null) {
+                // ErrorHandlingDeserializer hands us null for records it could not decode
+                log.warn("Skipping undecodable record at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            byPayment.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(i);
+        }
+
+        List<Future<?>> groups = new ArrayList<>(byPayment.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Integer> indexes : byPayment.values()) {
+                groups.add(executor.submit(() -> {
+                    for (int index : indexes) {
+                        try {
+                            handlePaymentEvent(records.get(index).value());
+                        } catch (RuntimeException e) {
+                            throw new BatchListenerFailedException(
+                                "Notification failed for payment " + records.get(index).key(), e, index);
+                        }
+                    }
+                }));
+            }
+        }
+
+        // close() waited for every group, so their states are final
+        BatchListenerFailedException first = null;
+        for (Future<?> group : groups) {
+            if (group.state() == Future.State.FAILED
+                && group.exceptionNow() instanceof BatchListenerFailedException failure
+                && (first == null || failure.getIndex() < first.getIndex())) {
+                first = failure;
+            }
+        }
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    void handlePaymentEvent(PaymentEvent event) {
+        log.debug("Notification Service received event: {}", event);
 
         switch (event.getEventType()) {
             case PAYMENT_CREATED:
@@ -28,23 +126,23 @@ public class PaymentEventConsumer {
                 sendPaymentFailedNotification(event);
                 break;
             default:
-                log.info("No notification for event type: {}", event.getEventType());
+                log.debug("No notification for event type: {}", event.getEventType());
         }
     }
 
     private void sendPaymentCreatedNotification(PaymentEvent event) {
         // Simulate sending notification
-        log.info("📧 Sending notification: Payment {} created for user {} - Amount: {} {}",
-            event.getPaymentId(), event.getUserId(), event.getAmount(), event.getCurrency());
+        log.info("📧 Sending notification: Payment {} created for user {} - Amount: {}",
+            event.getPaymentId(), event.getUserId(), event.getAmount());
     }
 
     private void sendPaymentCompletedNotification(PaymentEvent event) {
-        log.info("✅ Sending notification: Payment {} completed for user {} - Amount: {} {}",
-            event.getPaymentId(), event.getUserId(), event.getAmount(), event.getCurrency());
+        log.info("✅ Sending notification: Payment {} completed for user {} - Amount: {}",
+            event.getPaymentId(), event.getUserId(), event.getAmount());
     }
 
     private void sendPaymentFailedNotification(PaymentEvent event) {
         log.info("❌ Sending notification: Payment {} failed for user {} - Reason: {}",
             event.getPaymentId(), event.getUserId(), event.getMessage());
     }
-}
\ No newline at end of file
+}
@@ -1,35 +1,43 @@
 package com.transactio.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.transactio.event.PaymentEvent;
+import com.transactio.model.OutboxEvent;
+import com.transactio.repository.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
-
+/**
+ * Records payment events in the transactional outbox. The event becomes visible to
+ * {@link OutboxRelay} only if the surrounding transaction commits, so a payment change and its
+ * event are never out of sync. The committed event is also applied to the local
+ * {@link PaymentProjection}, ahead of its round trip through Kafka.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentEventProducer {
 
-  private final KafkaTemplate<String, PaymentEvent> kafkaTemplate;
-
-  @Value("${spring.kafka.topic.payment-events}")
-  private String paymentEventsTopic;
+  private final OutboxEventRepository outboxRepository;
+  private final ObjectMapper objectMapper;
+  private final PaymentProjection projection;
 
+  @Transactional(propagation = Propagation.MANDATORY)
   public void sendPaymentEvent(PaymentEvent event) {
-    CompletableFuture<SendResult<String, PaymentEvent>> future = kafkaTemplate.send(paymentEventsTopic, event.getPaymentId().toString(), event);
-
-    future.whenComplete((result, ex) -> {
-      if (ex == null) {
-        log.info("Sent payment event: {} with offset: {}",
-            event, result.getRecordMetadata().offset());
-      } else {
-        log.error("Unable to send payment event: {}", event, ex);
-      }
-    });
+    OutboxEvent row = new OutboxEvent();
+    row.setAggregateId(event.getPaymentId());
+    row.setEventType(event.getEventType());
+    try {
+      row.setPayload(objectMapper.writeValueAsString(event));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Unable to serialize payment event " + event.getEventType(), e);
+    }
+    outboxRepository.save(row);
+    projection.applyAfterCommit(event);
+    log.debug("Queued payment event {} for payment {}", event.getEventType(), event.getPaymentId());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package com.transactio.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.transactio.dto.BatchPaymentResult;
+import com.transactio.dto.PaymentRequest;
+import com.transactio.exception.PaymentRejectedException;
+import com.transactio.model.Payment;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit front end for {@code POST /api/v1/payments/async}.
+ *
+ * <p>Requests are queued and a small number of writer threads drain the queue, creating whatever has
+ * accumulated (up to {@code max-batch}) through {@link PaymentService#createPayments} in one
+ * transaction per chunk. Each request is given its payment id when it is queued, so the caller can
+ * answer straight away and no request thread waits on JDBC; commits are shared across concurrent
+ * requests. A full queue rejects immediately with {@link PaymentRejectedException}.
+ *
+ * <p>Until its payment is committed, a request can only be followed here: {@link #isQueued} while it
+ * waits, and {@link #failure} for {@code failure-retention} if it could not be created. Both are kept
+ * on the node that took the request.
+ */
+@Slf4j
+@Component
+public class PaymentIntake {
+
+    private record Pending(UUID id, PaymentRequest request) {
+    }
+
+    private final PaymentService paymentService;
+    private final BlockingQueue<Pending> queue;
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+    private final Cache<UUID, RuntimeException> failures;
+    private final int maxBatch;
+    private final List<Thread> writers = new ArrayList<>();
+    private final DistributionSummary batchSize;
+    private volatile boolean running = true;
+
+    public PaymentIntake(
+        PaymentService paymentService,
+        @Value("${transactio.intake.queue-capacity:10000}") int queueCapacity,
+        @Value("${transactio.intake.max-batch:500}") int maxBatch,
+        @Value("${transactio.intake.writers:2}") int writerCount,
+        @Value("${transactio.intake.failure-retention:10m}") Duration failureRetention,
+        MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.failures = Caffeine.newBuilder()
+            .expireAfterWrite(failureRetention)
+            .maximumSize(queueCapacity)
+            .build();
+
+        Gauge.builder("transactio.intake.queue.depth", queue, BlockingQueue::size)
+            .description("Async payment requests waiting to be written")
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("transactio.intake.batch.size")
+            .description("Async payment requests written per group commit")
+            .register(meterRegistry);
+
+        for (int i = 0; i < writerCount; i++) {
+            writers.add(Thread.ofVirtual().name("payment-intake-" + i).start(this::drain));
+        }
+    }
+
+    /**
+     * Queues a validated request and returns the id its payment will be created with.
+     *
+     * @throws PaymentRejectedException if the intake is full
+     */
+    public UUID submit(PaymentRequest request) {
+        Pending pending = new Pending(Payment.newId(), request);
+        queued.add(pending.id());
+        if (!running || !queue.offer(pending)) {
+            queued.remove(pending.id());
+            throw new PaymentRejectedException("Payment intake is full, retry later");
+        }
+        return pending.id();
+    }
+
+    /** Whether the payment was submitted here and is not committed or failed yet. */
+    public boolean isQueued(UUID id) {
+        return queued.contains(id);
+    }
+
+    /**
+     * Why a payment submitted here was not created: {@link PaymentRejectedException} when the
+     * processing engine was full, or null if it did not fail (or failed longer ago than the retention).
+     */
+    public RuntimeException failure(UUID id) {
+        return failures.getIfPresent(id);
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<PaymentRequest> requests = new ArrayList<>(batch.size());
+        List<UUID> ids = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            requests.add(pending.request());
+            ids.add(pending.id());
+        }
+        batchSize.record(batch.size());
+
+        List<BatchPaymentResult> results;
+        try {
+            results = paymentService.createPayments(requests, ids, 0);
+        } catch (RuntimeException e) {
+            log.error("Async payment batch of {} failed", batch.size(), e);
+            batch.forEach(pending -> fail(pending.id(), e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BatchPaymentResult result = results.get(i);
+            UUID id = batch.get(i).id();
+            if (result.payment() != null) {
+                queued.remove(id);
+            } else if (result.status() == 503) {
+                fail(id, new PaymentRejectedException(result.error()));
+            } else {
+                fail(id, new IllegalStateException(
+                    result.errors() != null ? "Payment request is invalid: " + result.errors() : result.error()));
+            }
+        }
+    }
+
+    // Recorded before the id leaves 'queued', so a poll in between never finds neither
+    private void fail(UUID id, RuntimeException cause) {
+        failures.put(id, cause);
+        queued.remove(id);
+    }
+
+    /** Stops accepting requests and lets the writers finish what is already queued. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.transactio.service;
+
+import com.transactio.model.PaymentStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Payment-level meters that Spring Boot does not record on its own.
+ *
+ * <p>{@code transactio.payment.create.phase} times each phase of payment creation, tagged with
+ * {@code phase} and {@code mode} (single or batch; batch phases are timed per chunk). The
+ * {@code persist} phase covers the JPA save only; the INSERTs are flushed at commit and show up in
+ * {@code http.server.requests}. {@code transactio.payments.active} counts payments this node created
+ * or moved into a non-terminal status, tagged by status; sum it across instances for the fleet view.
+ */
+@Component
+public class PaymentMetrics {
+
+    public enum CreatePhase {
+        VALIDATE, PERSIST, ADMIT, PUBLISH
+    }
+
+    private static final PaymentStatus[] ACTIVE_STATUSES = {PaymentStatus.PENDING, PaymentStatus.PROCESSING};
+
+    private final Map<CreatePhase, Timer> singlePhases = new EnumMap<>(CreatePhase.class);
+    private final Map<CreatePhase, Timer> batchPhases = new EnumMap<>(CreatePhase.class);
+    private final Map<PaymentStatus, AtomicInteger> active = new EnumMap<>(PaymentStatus.class);
+
+    public PaymentMetrics(MeterRegistry meterRegistry) {
+        for (CreatePhase phase : CreatePhase.values()) {
+            singlePhases.put(phase, phaseTimer(meterRegistry, phase, "single"));
+            batchPhases.put(phase, phaseTimer(meterRegistry, phase, "batch"));
+        }
+        for (PaymentStatus status : ACTIVE_STATUSES) {
+            AtomicInteger count = new AtomicInteger();
+            active.put(status, count);
+            Gauge.builder("transactio.payments.active", count, AtomicInteger::get)
+                .description("Payments in a non-terminal status, as seen by this instance")
+                .tag("status", status.name())
+                .register(meterRegistry);
+        }
+    }
+
+    private static Timer phaseTimer(MeterRegistry meterRegistry, CreatePhase phase, String mode) {
+        return Timer.builder("transactio.payment.create.phase")
+            .description("Time spent in each phase of payment creation")
+            .tag("phase", phase.name().toLowerCase())
+            .tag("mode", mode)
+            .register(meterRegistry);
+    }
+
+    public Timer phase(CreatePhase phase) {
+        return singlePhases.get(phase);
+    }
+
+    public Timer batchPhase(CreatePhase phase) {
+        return batchPhases.get(phase);
+    }
+
+    /** Counts {@code count} new PENDING payments once the current transaction commits. */
+    public void createdAfterCommit(int count) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    active.get(PaymentStatus.PENDING).addAndGet(count);
+                }
+            });
+        } else {
+            active.get(PaymentStatus.PENDING).addAndGet(count);
+        }
+    }
+
+    public void statusChanged(PaymentStatus from, PaymentStatus to) {
+        AtomicInteger previous = active.get(from);
+        if (previous != null) {
+            previous.decrementAndGet();
+        }
+        AtomicInteger next = active.get(to);
+        if (next != null) {
+            next.incrementAndGet();
+        }
+    }
+}
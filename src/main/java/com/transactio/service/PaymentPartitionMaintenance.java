@@ -0,0 +1,89 @@
+package com.transactio.service;
+
+import com.transactio.repository.PaymentPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps the monthly partitions of {@code payments} ahead of the clock and moves old months to
+ * {@code payments_archive}. A month is archived once it is older than
+ * {@code transactio.partitions.archive.after-months} and none of its payments is still PENDING or
+ * PROCESSING; a month that still has one is skipped and retried on the next run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentPartitionMaintenance {
+
+    private final PaymentPartitionRepository partitionRepository;
+
+    // Inserts fail if a payment's month has no partition, so stay well ahead of the daily run
+    @Value("${transactio.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${transactio.partitions.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${transactio.partitions.archive.after-months:6}")
+    private int archiveAfterMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        createFuturePartitions();
+    }
+
+    @Scheduled(cron = "${transactio.partitions.maintenance-cron:0 30 2 * * *}")
+    public void maintain() {
+        createFuturePartitions();
+        if (archiveEnabled) {
+            archiveOldPartitions();
+        }
+    }
+
+    private void createFuturePartitions() {
+        Instant now = Instant.now();
+        int created = partitionRepository.createPartitions(now,
+            YearMonth.now(ZoneOffset.UTC).plusMonths(monthsAhead).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        if (created > 0) {
+            log.info("Created {} payment partitions", created);
+        }
+    }
+
+    private void archiveOldPartitions() {
+        YearMonth cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(archiveAfterMonths);
+        for (YearMonth month : partitionRepository.orphanedMonths()) {
+            archive(month);
+        }
+        for (YearMonth month : partitionRepository.attachedMonths()) {
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            if (partitionRepository.hasActivePayments(month)) {
+                log.warn("Not archiving {}: it still has PENDING or PROCESSING payments",
+                    PaymentPartitionRepository.partitionName(month));
+                continue;
+            }
+            if (!archive(month)) {
+                return;
+            }
+        }
+    }
+
+    private boolean archive(YearMonth month) {
+        if (!partitionRepository.archive(month)) {
+            log.debug("Payment archiving is running on another instance");
+            return false;
+        }
+        log.info("Archived {} to payments_archive", PaymentPartitionRepository.partitionName(month));
+        return true;
+    }
+}
@@ -0,0 +1,215 @@
+package com.transactio.service;
+
+import com.transactio.exception.PaymentRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs payment lifecycle steps without parking a thread per payment.
+ *
+ * <p>Admission is bounded by {@code transactio.processing.max-in-flight}: once that many payments
+ * are between admission and their final step, {@link #submit} rejects with
+ * {@link PaymentRejectedException}. Delays between steps are handled by a single scheduler thread,
+ * which only hands the step off to the worker executor (virtual threads by default) once it is due.
+ */
+@Slf4j
+@Component
+public class PaymentProcessingEngine {
+
+    public record Step(Duration delay, Runnable action) {
+    }
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final Semaphore admission;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+    private final Duration drainTimeout;
+    private volatile boolean draining;
+
+    public PaymentProcessingEngine(
+        @Value("${transactio.processing.executor:virtual}") String executorType,
+        @Value("${transactio.processing.platform-threads:16}") int platformThreads,
+        @Value("${transactio.processing.max-in-flight:10000}") int maxInFlight,
+        @Value("${transactio.processing.drain-timeout:30s}") Duration drainTimeout,
+        MeterRegistry meterRegistry) {
+        this.workers = "platform".equalsIgnoreCase(executorType)
+            ? Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name("payment-worker-", 0).factory())
+            : Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-worker-", 0).factory());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("payment-scheduler").daemon(true).factory());
+        this.admission = new Semaphore(maxInFlight);
+        this.drainTimeout = drainTimeout;
+
+        Gauge.builder("transactio.processing.queue.depth", queued, AtomicInteger::get)
+            .description("Payments waiting for their next lifecycle step")
+            .register(meterRegistry);
+        Gauge.builder("transactio.processing.in.flight", inFlight, AtomicInteger::get)
+            .description("Payments admitted and not yet in a terminal state")
+            .register(meterRegistry);
+        Gauge.builder("transactio.processing.capacity.available", admission, Semaphore::availablePermits)
+            .description("Remaining admission slots")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("transactio.processing.rejected")
+            .description("Payments rejected because the engine was full or draining")
+            .register(meterRegistry);
+
+        log.info("Payment processing engine started: executor={}, maxInFlight={}", executorType, maxInFlight);
+    }
+
+    /**
+     * Admits a payment and schedules its steps in order. When called inside a transaction the first
+     * step is only scheduled after commit, so workers never see a payment that was rolled back.
+     *
+     * @throws PaymentRejectedException if the engine is at capacity or shutting down
+     */
+    public void submit(UUID paymentId, List<Step> steps, Consumer<Exception> onFailure) {
+        admit(1);
+        enqueue(paymentId, steps, onFailure);
+    }
+
+    /**
+     * Reserves capacity for {@code count} payments at once, or for none of them. Each reserved slot
+     * must be followed by exactly one {@link #enqueue} in the same transaction; if the transaction
+     * rolls back, the reservation is returned.
+     *
+     * @throws PaymentRejectedException if the engine cannot take all of them or is shutting down
+     */
+    public void admit(int count) {
+        if (draining || !admission.tryAcquire(count)) {
+            rejected.increment(count);
+            throw new PaymentRejectedException("Payment processing is at capacity, retry later");
+        }
+        inFlight.addAndGet(count);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(count);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Schedules the steps of a payment whose slot was reserved with {@link #admit}. Inside a
+     * transaction nothing is scheduled until it commits.
+     */
+    public void enqueue(UUID paymentId, List<Step> steps, Consumer<Exception> onFailure) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(paymentId, steps, 0, onFailure);
+                }
+            });
+        } else {
+            schedule(paymentId, steps, 0, onFailure);
+        }
+    }
+
+    private void schedule(UUID paymentId, List<Step> steps, int index, Consumer<Exception> onFailure) {
+        if (index >= steps.size()) {
+            release();
+            return;
+        }
+        Step step = steps.get(index);
+        queued.incrementAndGet();
+        try {
+            scheduler.schedule(() -> {
+                queued.decrementAndGet();
+                try {
+                    workers.execute(() -> run(paymentId, steps, index, onFailure));
+                } catch (RejectedExecutionException e) {
+                    // Workers already stopped (drain timeout passed); fail here so the slot is released
+                    fail(paymentId, onFailure, e);
+                }
+            }, step.delay().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            fail(paymentId, onFailure, e);
+        }
+    }
+
+    private void run(UUID paymentId, List<Step> steps, int index, Consumer<Exception> onFailure) {
+        try {
+            steps.get(index).action().run();
+        } catch (Exception e) {
+            fail(paymentId, onFailure, e);
+            return;
+        }
+        schedule(paymentId, steps, index + 1, onFailure);
+    }
+
+    private void fail(UUID paymentId, Consumer<Exception> onFailure, Exception cause) {
+        log.error("Payment processing failed, paymentId={}, error={}", paymentId, cause.getMessage(), cause);
+        try {
+            onFailure.accept(cause);
+        } catch (Exception e) {
+            log.error("Failure handler threw for paymentId={}", paymentId, e);
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        release(1);
+    }
+
+    private void release(int count) {
+        inFlight.addAndGet(-count);
+        admission.release(count);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Stops admitting new payments and waits up to the drain timeout for in-flight ones to reach a
+     * terminal step before stopping the executors.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        draining = true;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        if (inFlight.get() > 0) {
+            log.warn("Drain timeout reached with {} payments still in flight", inFlight.get());
+        }
+        scheduler.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentResponse;
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventType;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Event-sourced read model of payments, rebuilt from {@code payment-events} and serving
+ * {@link PaymentService#getPaymentById} without a database read when
+ * {@code transactio.projection.enabled} is set.
+ *
+ * <p>Payments are held off-heap in two memory-mapped files under {@code transactio.projection.path}:
+ * {@code index}, an open-addressed table of fixed {@value #SLOT}-byte slots keyed by payment ID, and
+ * {@code data}, an append-only log of each payment's receiver ID and description. One writer at a
+ * time applies events; readers take no lock and retry when a per-slot sequence number (a seqlock)
+ * shows that a write overlapped their read. An event only ever moves a payment forward in its
+ * lifecycle, so applying it twice (after the local commit and again from Kafka) or replaying part of
+ * the topic is harmless.
+ *
+ * <p>Every {@code snapshot-interval-ms} both files are forced to disk and the next offset of each
+ * partition is written to the index header. On startup an existing index is reused and the listener
+ * seeks to those offsets, so only the events since the last snapshot are replayed; a new index
+ * replays the topic from the beginning. Payments the projection does not know completely (created
+ * before the topic's retention, or before events carried the receiver) are read from the database,
+ * as are all payments once the table is {@value #MAX_LOAD_PERCENT}% full.
+ */
+@Slf4j
+@Component
+public class PaymentProjection implements ConsumerSeekAware {
+
+    private static final long MAGIC = 0x5458_5052_4F4A_0001L;
+    private static final int HEADER = 4096;
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    // Header layout
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 8;
+    private static final int H_SIZE = 12;
+    private static final int H_DATA_END = 16;
+    private static final int H_CLEAN = 20;
+    private static final int H_OFFSETS = 64;
+    private static final int MAX_PARTITIONS = (HEADER - H_OFFSETS) / Long.BYTES;
+
+    // Slot layout; longs are 8-byte aligned because HEADER and SLOT are multiples of 8
+    private static final int SLOT = 80;
+    private static final int SEQ = 0;
+    private static final int FLAGS = 4;
+    private static final int STATUS = 5;
+    private static final int CURRENCY = 6;
+    private static final int ID_MSB = 16;
+    private static final int ID_LSB = 24;
+    private static final int SENDER_MSB = 32;
+    private static final int SENDER_LSB = 40;
+    private static final int AMOUNT = 48;
+    private static final int CREATED_AT = 56;
+    private static final int UPDATED_AT = 64;
+    private static final int DATA = 72;
+
+    private static final int HAS_STATUS = 1;
+    private static final int COMPLETE = 1 << 1;
+    private static final int NULL_STRING = 0xFFFF;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final boolean enabled;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLongArray nextOffsets = new AtomicLongArray(MAX_PARTITIONS);
+    private MappedByteBuffer index;
+    private MappedByteBuffer data;
+    private int mask;
+    private int maxSize;
+    private int size;
+    private int dataEnd;
+    private Counter hits;
+    private Counter misses;
+    private Counter untracked;
+
+    public PaymentProjection(
+        MeterRegistry meterRegistry,
+        @Value("${transactio.projection.enabled:false}") boolean enabled,
+        @Value("${transactio.projection.path:${java.io.tmpdir}/transactio-projection}") String path,
+        @Value("${transactio.projection.capacity:1048576}") int capacity,
+        @Value("${transactio.projection.data-size:256MB}") DataSize dataSize) {
+        this.enabled = enabled;
+        if (!enabled) {
+            return;
+        }
+        int slots = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        if (slots > (Integer.MAX_VALUE - HEADER) / SLOT || dataSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Payment projection files must each stay under 2 GB");
+        }
+        try {
+            open(Path.of(path), slots, (int) dataSize.toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the payment projection in " + path, e);
+        }
+
+        Gauge.builder("transactio.projection.payments", this, projection -> projection.size)
+            .description("Payments held in the event-sourced projection")
+            .register(meterRegistry);
+        hits = Counter.builder("transactio.projection.reads")
+            .description("Payment lookups answered by the projection or passed on to the database")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        misses = Counter.builder("transactio.projection.reads")
+            .description("Payment lookups answered by the projection or passed on to the database")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        untracked = Counter.builder("transactio.projection.untracked")
+            .description("Payment events not projected because the index or data file was full")
+            .register(meterRegistry);
+    }
+
+    private void open(Path directory, int slots, int dataBytes) throws IOException {
+        Files.createDirectories(directory);
+        Path indexFile = directory.resolve("index");
+        Path dataFile = directory.resolve("data");
+        long indexBytes = HEADER + (long) slots * SLOT;
+
+        boolean reuse = Files.exists(indexFile) && Files.size(indexFile) == indexBytes
+            && Files.exists(dataFile) && Files.size(dataFile) == dataBytes;
+        if (reuse) {
+            index = map(indexFile, indexBytes, false);
+            reuse = index.getLong(H_MAGIC) == MAGIC && index.getInt(H_CAPACITY) == slots;
+        }
+        if (reuse) {
+            data = map(dataFile, dataBytes, false);
+            size = index.getInt(H_SIZE);
+            dataEnd = index.getInt(H_DATA_END);
+            for (int partition = 0; partition < MAX_PARTITIONS; partition++) {
+                nextOffsets.set(partition, index.getLong(H_OFFSETS + partition * Long.BYTES));
+            }
+            if (index.getInt(H_CLEAN) == 0) {
+                log.warn("Payment projection in {} was not closed cleanly; replaying from its last snapshot", directory);
+                releaseInterruptedWrites(slots);
+            }
+            log.info("Reusing payment projection in {} with {} payments", directory, size);
+        } else {
+            index = map(indexFile, indexBytes, true);
+            data = map(dataFile, dataBytes, true);
+            index.putLong(H_MAGIC, MAGIC);
+            index.putInt(H_CAPACITY, slots);
+            log.info("Created payment projection in {}; replaying payment-events from the beginning", directory);
+        }
+        index.putInt(H_CLEAN, 0);
+        mask = slots - 1;
+        maxSize = (int) ((long) slots * MAX_LOAD_PERCENT / 100);
+    }
+
+    private static MappedByteBuffer map(Path file, long bytes, boolean reset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (reset) {
+                channel.truncate(0);
+            }
+            // Mapping past the end grows the file sparsely, so unused capacity costs no disk
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    // A slot left mid-write by a crash would make readers spin forever; the replay rewrites its contents
+    private void releaseInterruptedWrites(int slots) {
+        for (int slot = 0; slot < slots; slot++) {
+            int base = HEADER + slot * SLOT;
+            int seq = index.getInt(base + SEQ);
+            if ((seq & 1) != 0) {
+                index.putInt(base + SEQ, seq + 1);
+            }
+        }
+    }
+
+    /**
+     * The projected payment, or null if the projection is disabled or does not know the whole payment.
+     */
+    public PaymentResponse find(UUID id) {
+        if (!enabled) {
+            return null;
+        }
+        int base = lookup(id);
+        if (base < 0) {
+            misses.increment();
+            return null;
+        }
+        int flags;
+        int status;
+        byte c0;
+        byte c1;
+        byte c2;
+        long senderMsb;
+        long senderLsb;
+        long amount;
+        long createdAt;
+        long updatedAt;
+        int dataAt;
+        while (true) {
+            int seq = (int) INT.getAcquire(index, base + SEQ);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            flags = index.get(base + FLAGS);
+            status = index.get(base + STATUS);
+            c0 = index.get(base + CURRENCY);
+            c1 = index.get(base + CURRENCY + 1);
+            c2 = index.get(base + CURRENCY + 2);
+            senderMsb = index.getLong(base + SENDER_MSB);
+            senderLsb = index.getLong(base + SENDER_LSB);
+            amount = index.getLong(base + AMOUNT);
+            createdAt = index.getLong(base + CREATED_AT);
+            updatedAt = index.getLong(base + UPDATED_AT);
+            dataAt = index.getInt(base + DATA);
+            VarHandle.loadLoadFence();
+            if ((int) INT.getAcquire(index, base + SEQ) == seq) {
+                break;
+            }
+        }
+        if ((flags & COMPLETE) == 0) {
+            misses.increment();
+            return null;
+        }
+
+        PaymentResponse response = new PaymentResponse();
+        response.setId(id);
+        response.setAmount(Money.ofMinor(amount, Money.currency(new String(new char[] {(char) c0, (char) c1, (char) c2}))));
+        response.setStatus(STATUSES[status]);
+        response.setSenderId(new UUID(senderMsb, senderLsb).toString());
+        // The data log is append-only, so the entry a completed slot points at never changes
+        int receiverLength = data.getShort(dataAt) & 0xFFFF;
+        response.setReceiverId(readString(dataAt + 2, receiverLength));
+        int descriptionAt = dataAt + 2 + receiverLength;
+        int descriptionLength = data.getShort(descriptionAt) & 0xFFFF;
+        response.setDescription(descriptionLength == NULL_STRING ? null : readString(descriptionAt + 2, descriptionLength));
+        response.setCreatedAt(Instant.ofEpochMilli(createdAt));
+        response.setUpdatedAt(Instant.ofEpochMilli(updatedAt));
+        hits.increment();
+        return response;
+    }
+
+    private String readString(int at, int length) {
+        byte[] bytes = new byte[length];
+        data.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Applies the event once the current transaction commits, or immediately if there is none, so a
+     * local write is readable before the event comes back from Kafka.
+     */
+    public void applyAfterCommit(PaymentEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    @KafkaListener(
+        topics = "${spring.kafka.topic.payment-events}",
+        groupId = "payment-projection-${random.uuid}",
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "${transactio.projection.enabled:false}",
+        // One consumer, so partitions are applied by a single thread and their offsets tracked in order
+        concurrency = "1",
+        properties = "auto.offset.reset=earliest"
+    )
+    public void onPaymentEvents(List<ConsumerRecord<String, PaymentEvent>> records) {
+        for (ConsumerRecord<String, PaymentEvent> record : records) {
+            apply(record.value());
+            // Partitions beyond the header's table are replayed from the beginning on every start
+            if (record.partition() < MAX_PARTITIONS) {
+                nextOffsets.set(record.partition(), record.offset() + 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assignments.keySet()) {
+            long next = partition.partition() < MAX_PARTITIONS ? nextOffsets.get(partition.partition()) : 0;
+            if (next > 0) {
+                callback.seek(partition.topic(), partition.partition(), next);
+            }
+        }
+    }
+
+    void apply(PaymentEvent event) {
+        if (event == null || event.getPaymentId() == null || event.getStatus() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            int base = slotFor(event.getPaymentId());
+            if (base < 0) {
+                untracked.increment();
+                return;
+            }
+            int flags = index.get(base + FLAGS);
+            boolean advance = (flags & HAS_STATUS) == 0
+                || rank(event.getStatus()) > rank(STATUSES[index.get(base + STATUS)]);
+            boolean fill = event.getEventType() == PaymentEventType.PAYMENT_CREATED && (flags & COMPLETE) == 0
+                && event.getAmount() != null && event.getUserId() != null && event.getReceiverId() != null;
+            int dataAt = dataEnd;
+            if (fill && !append(event.getReceiverId(), event.getDescription())) {
+                untracked.increment();
+                fill = false;
+            }
+            if (!advance && !fill) {
+                return;
+            }
+            long timestamp = event.getTimestamp() != null ? event.getTimestamp().toEpochMilli() : System.currentTimeMillis();
+
+            int seq = index.getInt(base + SEQ);
+            INT.setOpaque(index, base + SEQ, seq + 1);
+            VarHandle.storeStoreFence();
+            if (fill) {
+                Money amount = event.getAmount();
+                String currency = amount.currencyCode();
+                for (int i = 0; i < 3; i++) {
+                    index.put(base + CURRENCY + i, (byte) currency.charAt(i));
+                }
+                index.putLong(base + SENDER_MSB, event.getUserId().getMostSignificantBits());
+                index.putLong(base + SENDER_LSB, event.getUserId().getLeastSignificantBits());
+                index.putLong(base + AMOUNT, amount.minorUnits());
+                index.putLong(base + CREATED_AT, timestamp);
+                index.putInt(base + DATA, dataAt);
+                flags |= COMPLETE;
+            }
+            if (advance) {
+                index.put(base + STATUS, (byte) event.getStatus().ordinal());
+                index.putLong(base + UPDATED_AT, timestamp);
+                flags |= HAS_STATUS;
+            }
+            index.put(base + FLAGS, (byte) flags);
+            INT.setRelease(index, base + SEQ, seq + 2);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Lifecycle order; a status only replaces one of a lower rank, which makes events idempotent
+    private static int rank(PaymentStatus status) {
+        return switch (status) {
+            case PENDING -> 0;
+            case PROCESSING -> 1;
+            case COMPLETED, FAILED, CANCELLED -> 2;
+            case REFUNDED -> 3;
+        };
+    }
+
+    private int lookup(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        for (int probe = 0, slot = home(msb, lsb); probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int base = HEADER + slot * SLOT;
+            long slotMsb = index.getLong(base + ID_MSB);
+            long slotLsb = index.getLong(base + ID_LSB);
+            if (slotMsb == msb && slotLsb == lsb) {
+                return base;
+            }
+            if (slotMsb == 0 && slotLsb == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // Called with the write lock held
+    private int slotFor(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        for (int probe = 0, slot = home(msb, lsb); probe <= mask; probe++, slot = (slot + 1) & mask) {
+            int base = HEADER + slot * SLOT;
+            long slotMsb = index.getLong(base + ID_MSB);
+            long slotLsb = index.getLong(base + ID_LSB);
+            if (slotMsb == msb && slotLsb == lsb) {
+                return base;
+            }
+            if (slotMsb == 0 && slotLsb == 0) {
+                if (size >= maxSize) {
+                    return -1;
+                }
+                // A reader that sees only half of the ID misses and falls back to the database
+                index.putLong(base + ID_MSB, msb);
+                index.putLong(base + ID_LSB, lsb);
+                index.putInt(H_SIZE, ++size);
+                return base;
+            }
+        }
+        return -1;
+    }
+
+    private int home(long msb, long lsb) {
+        return Long.hashCode(msb ^ lsb) & mask;
+    }
+
+    // Entry: receiverLength:u16 receiver descriptionLength:u16 (0xFFFF for null) description
+    private boolean append(String receiverId, String description) {
+        byte[] receiver = receiverId.getBytes(StandardCharsets.UTF_8);
+        byte[] text = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        long length = 4L + receiver.length + (text == null ? 0 : text.length);
+        if (receiver.length >= NULL_STRING || (text != null && text.length >= NULL_STRING)
+            || dataEnd + length > data.capacity()) {
+            return false;
+        }
+        int at = dataEnd;
+        data.putShort(at, (short) receiver.length);
+        data.put(at + 2, receiver);
+        int textAt = at + 2 + receiver.length;
+        data.putShort(textAt, (short) (text == null ? NULL_STRING : text.length));
+        if (text != null) {
+            data.put(textAt + 2, text);
+        }
+        dataEnd += (int) length;
+        index.putInt(H_DATA_END, dataEnd);
+        return true;
+    }
+
+    /**
+     * Forces both files to disk, then records the offsets read before the flush as the point to
+     * replay from. Events after those offsets may already be applied; replaying them is harmless.
+     */
+    @Scheduled(fixedDelayString = "${transactio.projection.snapshot-interval-ms:10000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        long[] offsets = new long[MAX_PARTITIONS];
+        for (int partition = 0; partition < MAX_PARTITIONS; partition++) {
+            offsets[partition] = nextOffsets.get(partition);
+        }
+        data.force();
+        index.force();
+        for (int partition = 0; partition < MAX_PARTITIONS; partition++) {
+            index.putLong(H_OFFSETS + partition * Long.BYTES, offsets[partition]);
+        }
+        index.force(0, HEADER);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        // Listener containers have stopped by now, so no more events are applied
+        snapshot();
+        index.putInt(H_CLEAN, 1);
+        index.force(0, HEADER);
+    }
+}
@@ -1,122 +1,368 @@
 package com.transactio.service;
 
+import com.transactio.dto.BatchPaymentResult;
+import com.transactio.dto.PaymentCursor;
+import com.transactio.dto.PaymentPage;
 import com.transactio.dto.PaymentRequest;
 import com.transactio.dto.PaymentResponse;
 import com.transactio.event.PaymentEvent;
 import com.transactio.event.PaymentEventType;
+import com.transactio.exception.PaymentRejectedException;
+import com.transactio.model.Money;
 import com.transactio.model.Payment;
 import com.transactio.model.PaymentStatus;
+import com.transactio.model.PaymentView;
 import com.transactio.repository.PaymentRepository;
-import java.time.LocalDateTime;
+import com.transactio.service.PaymentMetrics.CreatePhase;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.Instant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentService {
 
+    private static final Set<PaymentStatus> FINISHED = EnumSet.of(
+        PaymentStatus.COMPLETED, PaymentStatus.FAILED, PaymentStatus.CANCELLED, PaymentStatus.REFUNDED);
+
+    // created_at is stamped at insert, after the id was issued (and after any wait in the async
+    // intake queue); a day either side covers that and clock steps, and spans at most two partitions
+    private static final Duration ID_TIME_MARGIN = Duration.ofDays(1);
+
     private final PaymentRepository paymentRepository;
     private final PaymentEventProducer eventProducer;
+    private final PaymentProcessingEngine processingEngine;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentCache paymentCache;
+    private final Validator validator;
+    private final AccountLedger accountLedger;
+    private final PaymentMetrics metrics;
+    private final FraudScreen fraudScreen;
+    private final PaymentProjection projection;
+    private final PaymentTransitionWriter transitionWriter;
+
+    @Value("${transactio.processing.processing-delay:2s}")
+    private Duration processingDelay;
+
+    @Value("${transactio.processing.completion-delay:3s}")
+    private Duration completionDelay;
+
+    // Keep in step with spring.jpa.properties.hibernate.jdbc.batch_size
+    @Value("${transactio.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     @Transactional
     public PaymentResponse createPayment(PaymentRequest request) {
-        log.info("Creating payment from {} to {} for amount {} {}",
+        log.debug("Creating payment from {} to {} for amount {} {}",
             request.getSenderId(), request.getReceiverId(),
             request.getAmount(), request.getCurrency());
 
+        Payment pending = metrics.phase(CreatePhase.PERSIST).record(() -> paymentRepository.save(newPayment(request, Payment.newId())));
+
+        // Admit before publishing so a rejected payment rolls back without a PAYMENT_CREATED event
+        metrics.phase(CreatePhase.ADMIT).record(() -> processPaymentAsync(pending));
+
+        PaymentEvent event = createPaymentEvent(pending, PaymentEventType.PAYMENT_CREATED, "Payment created successfully");
+        metrics.phase(CreatePhase.PUBLISH).record(() -> eventProducer.sendPaymentEvent(event));
+        metrics.createdAfterCommit(1);
+        log.debug("Payment processed with ID: {}", pending.getId());
+
+        PaymentResponse response = mapToResponse(pending);
+        paymentCache.putAfterCommit(response);
+        return response;
+    }
+
+    /**
+     * Creates a batch of payments, returning one result per request in the same order.
+     *
+     * <p>Invalid requests are reported individually and skipped. Valid ones are persisted in chunks
+     * of {@code transactio.batch.chunk-size}, each in its own transaction, so Hibernate can batch the
+     * payment and outbox inserts. Processing capacity is reserved per chunk; if the engine cannot take
+     * a whole chunk, every payment in it is rejected and nothing from it is stored.
+     *
+     * @param firstIndex index reported for {@code requests.get(0)}, for callers feeding a stream in pieces
+     */
+    public List<BatchPaymentResult> createPayments(List<PaymentRequest> requests, int firstIndex) {
+        List<UUID> ids = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ids.add(Payment.newId());
+        }
+        return createPayments(requests, ids, firstIndex);
+    }
+
+    /**
+     * Same as {@link #createPayments(List, int)}, with the payment ids chosen by the caller, one per
+     * request, so they can be handed out before the payments are committed.
+     */
+    public List<BatchPaymentResult> createPayments(List<PaymentRequest> requests, List<UUID> ids, int firstIndex) {
+        BatchPaymentResult[] results = new BatchPaymentResult[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            Set<ConstraintViolation<PaymentRequest>> violations =
+                metrics.batchPhase(CreatePhase.VALIDATE).record(() -> validator.validate(request));
+            if (violations.isEmpty()) {
+                validIndexes.add(i);
+            } else {
+                Map<String, String> errors = new HashMap<>();
+                for (ConstraintViolation<PaymentRequest> violation : violations) {
+                    errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                results[i] = BatchPaymentResult.invalid(firstIndex + i, errors);
+            }
+        }
+
+        for (int from = 0; from < validIndexes.size(); from += batchChunkSize) {
+            List<Integer> chunk = validIndexes.subList(from, Math.min(from + batchChunkSize, validIndexes.size()));
+            try {
+                List<PaymentResponse> created = transactionTemplate.execute(tx -> createChunk(requests, ids, chunk));
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = BatchPaymentResult.created(firstIndex + chunk.get(i), created.get(i));
+                }
+            } catch (PaymentRejectedException e) {
+                for (int index : chunk) {
+                    results[index] = BatchPaymentResult.rejected(firstIndex + index, e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                log.error("Batch chunk of {} payments failed", chunk.size(), e);
+                for (int index : chunk) {
+                    results[index] = BatchPaymentResult.failed(firstIndex + index, e.getMessage());
+                }
+            }
+        }
+        log.debug("Batch of {} payments: {} valid", requests.size(), validIndexes.size());
+        return Arrays.asList(results);
+    }
+
+    private List<PaymentResponse> createChunk(List<PaymentRequest> requests, List<UUID> ids, List<Integer> chunk) {
+        metrics.batchPhase(CreatePhase.ADMIT).record(() -> processingEngine.admit(chunk.size()));
+
+        List<Payment> payments = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            payments.add(newPayment(requests.get(index), ids.get(index)));
+        }
+        List<Payment> saved = metrics.batchPhase(CreatePhase.PERSIST).record(() -> paymentRepository.saveAll(payments));
+
+        Timer.Sample publish = Timer.start();
+        List<PaymentResponse> responses = new ArrayList<>(saved.size());
+        for (Payment pending : saved) {
+            processingEngine.enqueue(pending.getId(), lifecycleSteps(pending), e -> fail(pending, e));
+            eventProducer.sendPaymentEvent(
+                createPaymentEvent(pending, PaymentEventType.PAYMENT_CREATED, "Payment created successfully"));
+            PaymentResponse response = mapToResponse(pending);
+            paymentCache.putAfterCommit(response);
+            responses.add(response);
+        }
+        publish.stop(metrics.batchPhase(CreatePhase.PUBLISH));
+        metrics.createdAfterCommit(saved.size());
+        return responses;
+    }
+
+    private static Payment newPayment(PaymentRequest request, UUID id) {
         Payment payment = new Payment();
-        payment.setAmount(request.getAmount());
-        payment.setCurrency(request.getCurrency());
+        payment.setId(id);
+        // PaymentRequest's @ValidAmount has already checked that this converts
+        payment.setAmount(Money.of(request.getAmount(), request.getCurrency()));
         payment.setSenderId(request.getSenderId());
         payment.setReceiverId(request.getReceiverId());
         payment.setDescription(request.getDescription());
         payment.setStatus(PaymentStatus.PENDING);
-
-        Payment pending = paymentRepository.save(payment);
-
-        PaymentEvent event = createPaymentEvent(pending, PaymentEventType.PAYMENT_CREATED, "Payment created successfully");
-        eventProducer.sendPaymentEvent(event);
-        // In a real system, we would have payment processing logic here
-        // For now, we'll simulate processing
-        processPaymentAsync(pending);
-        log.info("Payment processed with ID: {}", pending.getId());
-
-        return mapToResponse(pending);
+        return payment;
     }
 
     public PaymentResponse getPaymentById(UUID id) {
-        Payment payment = paymentRepository.findById(id)
+        // The projection answers when enabled and it has seen the whole payment; otherwise the database does
+        PaymentResponse projected = projection.find(id);
+        return projected != null ? projected : paymentCache.get(id, this::loadPayment);
+    }
+
+    private PaymentResponse loadPayment(UUID id) {
+        Payment payment = Payment.idTimestamp(id)
+            .map(issued -> findCreatedAround(id, issued))
+            // Random ids from before Payment.newId() was time-ordered: no bound, every partition is probed
+            .orElseGet(() -> paymentRepository.findById(id).or(() -> paymentRepository.findArchivedById(id)))
             .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
         return mapToResponse(payment);
     }
 
-    public List<PaymentResponse> getAllPayments() {
-        return paymentRepository.findAll().stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+    private Optional<Payment> findCreatedAround(UUID id, Instant issued) {
+        Instant from = issued.minus(ID_TIME_MARGIN);
+        Instant to = issued.plus(ID_TIME_MARGIN);
+        return paymentRepository.findByIdCreatedBetween(id, from, to)
+            .or(() -> paymentRepository.findArchivedByIdCreatedBetween(id, from, to));
+    }
+
+    // Listings select PaymentView rows, so there is nothing to flush; readOnly also marks the
+    // connection read-only and skips Hibernate's flush at commit
+    @Transactional(readOnly = true)
+    public PaymentPage getAllPayments(String cursor, int limit) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        return toPage(paymentRepository.findPageAfter(after.createdAt(), after.id(), pageOf(limit)), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentPage getPaymentsByStatus(PaymentStatus status, String cursor, int limit) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        return toPage(paymentRepository.findPageByStatusAfter(status, after.createdAt(), after.id(), pageOf(limit)), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentPage getPaymentsForUser(String userId, String cursor, int limit) {
+        PaymentCursor after = PaymentCursor.decode(cursor);
+        return toPage(paymentRepository.findPageForUserAfter(userId, after.createdAt(), after.id(), pageOf(limit)), limit);
     }
 
-    public List<PaymentResponse> getPaymentsByStatus(PaymentStatus status) {
-        return paymentRepository.findByStatus(status).stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void exportAllPayments(Consumer<PaymentResponse> sink) {
+        export(paymentRepository.streamAll(), sink);
     }
 
-    public List<PaymentResponse> getPaymentsForUser(String userId) {
-        return paymentRepository.findBySenderIdOrReceiverId(userId, userId).stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void exportPaymentsByStatus(PaymentStatus status, Consumer<PaymentResponse> sink) {
+        export(paymentRepository.streamByStatus(status), sink);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPaymentsForUser(String userId, Consumer<PaymentResponse> sink) {
+        export(paymentRepository.streamForUser(userId), sink);
+    }
+
+    private static int pageOf(int limit) {
+        // One extra row tells us whether another page exists without a count query
+        return limit + 1;
+    }
+
+    private PaymentPage toPage(List<PaymentView> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<PaymentView> page = hasMore ? rows.subList(0, limit) : rows;
+        List<PaymentResponse> items = new ArrayList<>(page.size());
+        for (PaymentView row : page) {
+            items.add(mapToResponse(row));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            PaymentView last = page.get(page.size() - 1);
+            nextCursor = new PaymentCursor(last.createdAt(), last.id()).encode();
+        }
+        return new PaymentPage(items, nextCursor);
+    }
+
+    private void export(Stream<Payment> payments, Consumer<PaymentResponse> sink) {
+        try (payments) {
+            payments.forEach(payment -> {
+                sink.accept(mapToResponse(payment));
+                // Keep the persistence context empty so memory stays flat for any export size
+                entityManager.detach(payment);
+            });
+        }
     }
 
     private void processPaymentAsync(Payment payment) {
         // In a real system, this would involve:
-        // 1. Validating sender's balance
-        // 2. Checking fraud detection rules
-        // 3. Executing the actual transfer
-        // 4. Updating account balances
-        try {
-            new Thread(() -> {
+        // 1. Validating sender's balance (AccountLedger, when enabled)
+        // 2. Checking fraud detection rules (FraudScreen)
+        // 3. Executing the actual transfer (AccountLedger, when enabled)
+        // 4. Updating account balances (AccountLedger, when enabled)
+        processingEngine.submit(payment.getId(), lifecycleSteps(payment), e -> fail(payment, e));
+    }
+
+    private List<PaymentProcessingEngine.Step> lifecycleSteps(Payment payment) {
+        return List.of(
+            // Screened as soon as the payment is committed; a declined payment goes straight to FAILED
+            new PaymentProcessingEngine.Step(Duration.ZERO, () -> fraudScreen.screen(payment)),
+            new PaymentProcessingEngine.Step(processingDelay, () -> transition(payment,
+                PaymentStatus.PROCESSING, PaymentEventType.PAYMENT_PROCESSING, "Payment is being processed")),
+            new PaymentProcessingEngine.Step(completionDelay, () -> {
+                settle(payment);
                 try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                    transition(payment, PaymentStatus.COMPLETED, PaymentEventType.PAYMENT_COMPLETED, "Payment completed successfully");
+                } catch (RuntimeException e) {
+                    // The payment is about to be marked FAILED, so the money it moved goes back
+                    reverseSettlement(payment, e);
+                    throw e;
                 }
+            }));
+    }
 
-                payment.setStatus(PaymentStatus.PROCESSING);
-                Payment processing = paymentRepository.save(payment);
-                eventProducer.sendPaymentEvent(createPaymentEvent(processing, PaymentEventType.PAYMENT_PROCESSING, "Payment is being processed"));
+    private void settle(Payment payment) {
+        await(accountLedger.transfer(payment.getSenderId(), payment.getReceiverId(), payment.getAmount()));
+    }
 
-                try {
-                    Thread.sleep(3000);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+    private void reverseSettlement(Payment payment, RuntimeException cause) {
+        try {
+            await(accountLedger.reverse(payment.getSenderId(), payment.getReceiverId(), payment.getAmount()));
+        } catch (RuntimeException e) {
+            log.error("Could not reverse the settlement of payment {}; balances of {} and {} need correcting",
+                payment.getId(), payment.getSenderId(), payment.getReceiverId(), e);
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-                // Complete payment
-                payment.setStatus(PaymentStatus.COMPLETED);
-                Payment completed = paymentRepository.save(payment);
-                eventProducer.sendPaymentEvent(createPaymentEvent(completed, PaymentEventType.PAYMENT_COMPLETED, "Payment completed successfully"));
-            }).start();
-        } catch (Exception e) {
-            log.error("Payment processing failed, paymentId={}, error={}", payment.getId(), e.getMessage(), e);
-            payment.setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(payment);
-            eventProducer.sendPaymentEvent(createPaymentEvent(payment, PaymentEventType.PAYMENT_FAILED, "Payment failed" + e.getMessage()));
+    private void fail(Payment payment, Exception cause) {
+        String message = "Payment failed: " + cause.getMessage();
+        try {
+            transition(payment, PaymentStatus.FAILED, PaymentEventType.PAYMENT_FAILED, message);
+        } catch (OptimisticLockingFailureException e) {
+            // The version held here is stale, so resubmitting it would conflict again: retry once
+            // against the row as it is now, unless another writer has already finished the payment
+            if (transitionWriter.reload(payment) && !FINISHED.contains(payment.getStatus())) {
+                transition(payment, PaymentStatus.FAILED, PaymentEventType.PAYMENT_FAILED, message);
+            }
         }
     }
 
-    private PaymentResponse mapToResponse(Payment payment) {
+    private void transition(Payment payment, PaymentStatus status, PaymentEventType eventType, String message) {
+        PaymentStatus previous = payment.getStatus();
+        PaymentEvent event = createPaymentEvent(payment, eventType, message);
+        event.setStatus(status);
+        // Status change and its outbox event commit together, in a flush shared with other payments
+        await(transitionWriter.submit(payment, status, event));
+        metrics.statusChanged(previous, status);
+        paymentCache.put(mapToResponse(payment));
+    }
+
+    // Package-private so the JMH suite can measure it directly
+    PaymentResponse mapToResponse(Payment payment) {
         PaymentResponse response = new PaymentResponse();
         response.setId(payment.getId());
         response.setAmount(payment.getAmount());
-        response.setCurrency(payment.getCurrency());
         response.setStatus(payment.getStatus());
         response.setSenderId(payment.getSenderId());
         response.setReceiverId(payment.getReceiverId());
@@ -126,16 +372,32 @@ public class PaymentService {
         return response;
     }
 
-    private PaymentEvent createPaymentEvent(Payment payment, PaymentEventType eventType, String message) {
+    PaymentResponse mapToResponse(PaymentView row) {
+        PaymentResponse response = new PaymentResponse();
+        response.setId(row.id());
+        response.setAmount(row.amount());
+        response.setStatus(row.paymentStatus());
+        response.setSenderId(row.senderId());
+        response.setReceiverId(row.receiverId());
+        response.setDescription(row.description());
+        response.setCreatedAt(row.createdAt());
+        response.setUpdatedAt(row.updatedAt());
+        return response;
+    }
+
+    PaymentEvent createPaymentEvent(Payment payment, PaymentEventType eventType, String message) {
+        boolean created = eventType == PaymentEventType.PAYMENT_CREATED;
         return PaymentEvent.builder()
             .paymentId(payment.getId())
             .userId(UUID.fromString(payment.getSenderId())) // TODO: what should we use? sender or receiver ID?
             .amount(payment.getAmount())
-            .currency(payment.getCurrency())
             .eventType(eventType)
             .status(payment.getStatus())
-            .timestamp(LocalDateTime.now())
+            // PAYMENT_CREATED carries the rest of the payment, so the event stream alone can rebuild it
+            .timestamp(created && payment.getCreatedAt() != null ? payment.getCreatedAt() : Instant.now())
             .message(message)
+            .receiverId(created ? payment.getReceiverId() : null)
+            .description(created ? payment.getDescription() : null)
             .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentResponse;
+import com.transactio.dto.PaymentStatusUpdate;
+import com.transactio.event.PaymentEvent;
+import com.transactio.exception.PaymentRejectedException;
+import com.transactio.model.PaymentStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes payment status changes to Server-Sent Events subscribers.
+ *
+ * <p>Each node reads {@code payment-events} under its own consumer group, like {@link PaymentCache},
+ * so a client gets every change whichever node it is connected to. A subscription first receives
+ * the payment's current state, then each later status, and is closed once the payment is terminal.
+ * Updates that would move a subscriber backwards (the snapshot racing an event) are dropped.
+ */
+@Slf4j
+@Component
+public class PaymentStatusStream {
+
+    private static final Set<PaymentStatus> TERMINAL =
+        EnumSet.of(PaymentStatus.COMPLETED, PaymentStatus.FAILED, PaymentStatus.CANCELLED);
+    private static final String EVENT_NAME = "status";
+
+    private final class Subscription {
+
+        private final UUID paymentId;
+        private final SseEmitter emitter;
+        // Not synchronized: the send is blocking I/O and would pin a virtual listener thread
+        private final ReentrantLock lock = new ReentrantLock();
+        private PaymentStatus lastSent;
+
+        Subscription(UUID paymentId, SseEmitter emitter) {
+            this.paymentId = paymentId;
+            this.emitter = emitter;
+        }
+
+        void send(PaymentStatusUpdate update) {
+            lock.lock();
+            try {
+                if (lastSent != null && update.status().ordinal() <= lastSent.ordinal()) {
+                    return;
+                }
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(update));
+                lastSent = update.status();
+                if (TERMINAL.contains(update.status())) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                remove(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final PaymentService paymentService;
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Duration timeout;
+    private final int maxSubscribers;
+
+    public PaymentStatusStream(
+        PaymentService paymentService,
+        @Value("${transactio.sse.timeout:5m}") Duration timeout,
+        @Value("${transactio.sse.max-subscribers:10000}") int maxSubscribers,
+        MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder("transactio.sse.subscribers", active, AtomicInteger::get)
+            .description("Open payment status streams on this instance")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for one payment.
+     *
+     * @throws PaymentRejectedException if this instance already holds {@code max-subscribers} streams
+     */
+    public SseEmitter subscribe(UUID paymentId) {
+        if (active.incrementAndGet() > maxSubscribers) {
+            active.decrementAndGet();
+            throw new PaymentRejectedException("Too many open payment status streams, retry later");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(paymentId, emitter);
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscription));
+
+        // Register before reading the snapshot so no event between the two is missed
+        subscriptions.computeIfAbsent(paymentId, id -> new CopyOnWriteArraySet<>()).add(subscription);
+        PaymentResponse current;
+        try {
+            current = paymentService.getPaymentById(paymentId);
+        } catch (RuntimeException e) {
+            remove(subscription);
+            throw e;
+        }
+        subscription.send(new PaymentStatusUpdate(current.getId(), current.getStatus(), current.getUpdatedAt(), null));
+        return emitter;
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.paymentId, (id, set) -> {
+            if (set.remove(subscription)) {
+                active.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @KafkaListener(
+        topics = "${spring.kafka.topic.payment-events}",
+        groupId = "payment-status-${random.uuid}",
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "${transactio.sse.enabled:true}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onPaymentEvents(List<ConsumerRecord<String, PaymentEvent>> records) {
+        for (ConsumerRecord<String, PaymentEvent> record : records) {
+            PaymentEvent event = record.value();
+            if (event == null || event.getPaymentId() == null || event.getStatus() == null) {
+                continue;
+            }
+            Set<Subscription> subscribers = subscriptions.get(event.getPaymentId());
+            if (subscribers == null) {
+                continue;
+            }
+            PaymentStatusUpdate update = new PaymentStatusUpdate(
+                event.getPaymentId(), event.getStatus(), event.getTimestamp(), event.getMessage());
+            for (Subscription subscription : subscribers) {
+                subscription.send(update);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.transactio.service;
+
+import com.transactio.event.PaymentEvent;
+import com.transactio.model.Payment;
+import com.transactio.model.PaymentStatus;
+import com.transactio.repository.PaymentTransitionRepository;
+import com.transactio.repository.PaymentTransitionRepository.StatusTransition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind coalescer for payment status transitions.
+ *
+ * <p>Transitions are queued and a few writer threads flush whatever has accumulated within
+ * {@code flush-interval} (up to {@code max-batch}) in one transaction: a single
+ * {@code UPDATE ... FROM (VALUES ...)} for the status rows, guarded by each payment's version, and
+ * the batched outbox inserts for the transitions that applied. This replaces a SELECT and a
+ * full-row UPDATE per transition with a share of one statement.
+ *
+ * <p>A payment has at most one transition queued, because the processing engine runs its steps one
+ * after another and each step waits for its flush. The queue is therefore bounded by
+ * {@code transactio.processing.max-in-flight}. A transition whose version no longer matches fails
+ * with {@link OptimisticLockingFailureException} and writes no event.
+ */
+@Slf4j
+@Component
+public class PaymentTransitionWriter {
+
+    private record Pending(Payment payment, PaymentStatus status, PaymentEvent event, CompletableFuture<Void> result) {
+    }
+
+    private final PaymentTransitionRepository transitionRepository;
+    private final PaymentEventProducer eventProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final long flushIntervalNanos;
+    private final int maxBatch;
+    private final List<Thread> writers = new ArrayList<>();
+    private final DistributionSummary flushSize;
+    private final Timer flushDuration;
+    private final Counter conflicts;
+    private volatile boolean running = true;
+
+    public PaymentTransitionWriter(
+        PaymentTransitionRepository transitionRepository,
+        PaymentEventProducer eventProducer,
+        TransactionTemplate transactionTemplate,
+        EntityManagerFactory entityManagerFactory,
+        @Value("${transactio.transitions.flush-interval:5ms}") Duration flushInterval,
+        @Value("${transactio.transitions.max-batch:500}") int maxBatch,
+        @Value("${transactio.transitions.writers:2}") int writerCount,
+        MeterRegistry meterRegistry) {
+        this.transitionRepository = transitionRepository;
+        this.eventProducer = eventProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.maxBatch = maxBatch;
+
+        Gauge.builder("transactio.transitions.queue.depth", queue, BlockingQueue::size)
+            .description("Status transitions waiting to be flushed")
+            .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("transactio.transitions.flush.size")
+            .description("Status transitions written per flush")
+            .register(meterRegistry);
+        this.flushDuration = Timer.builder("transactio.transitions.flush.duration")
+            .description("Time to write and commit one flush of status transitions")
+            .register(meterRegistry);
+        this.conflicts = Counter.builder("transactio.transitions.conflicts")
+            .description("Status transitions rejected because the payment's version had changed")
+            .register(meterRegistry);
+
+        for (int i = 0; i < writerCount; i++) {
+            writers.add(Thread.ofVirtual().name("payment-transitions-" + i).start(this::drain));
+        }
+    }
+
+    /**
+     * Queues a transition to {@code status} together with its outbox event. The future completes
+     * once both are committed, after {@code payment}'s status, update time and version have been
+     * brought up to date, or exceptionally with {@link OptimisticLockingFailureException}.
+     */
+    public CompletableFuture<Void> submit(Payment payment, PaymentStatus status, PaymentEvent event) {
+        Pending pending = new Pending(payment, status, event, new CompletableFuture<>());
+        if (running) {
+            queue.offer(pending);
+        } else {
+            // Shutting down: payments still draining from the processing engine are written directly
+            flush(List.of(pending));
+        }
+        return pending.result();
+    }
+
+    /**
+     * Brings {@code payment}'s status and version up to date from the database, e.g. after
+     * {@link #submit} failed with {@link OptimisticLockingFailureException}.
+     *
+     * @return false if the payment row no longer exists
+     */
+    public boolean reload(Payment payment) {
+        return transitionRepository.findState(payment.getId(), payment.getCreatedAt())
+            .map(state -> {
+                payment.setStatus(state.status());
+                payment.setVersion(state.version());
+                return true;
+            })
+            .orElse(false);
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Give transitions from other payments the flush interval to join this flush
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<StatusTransition> transitions = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            Payment payment = pending.payment();
+            transitions.add(new StatusTransition(payment.getId(), payment.getCreatedAt(), pending.status(),
+                pending.event().getTimestamp(), payment.getVersion()));
+        }
+        flushSize.record(batch.size());
+
+        Set<UUID> applied;
+        Timer.Sample sample = Timer.start();
+        try {
+            applied = transactionTemplate.execute(tx -> {
+                Set<UUID> updated = transitionRepository.applyAll(transitions);
+                for (Pending pending : batch) {
+                    if (updated.contains(pending.payment().getId())) {
+                        eventProducer.sendPaymentEvent(pending.event());
+                    }
+                }
+                return updated;
+            });
+        } catch (RuntimeException e) {
+            log.error("Flush of {} payment status transitions failed", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        } finally {
+            sample.stop(flushDuration);
+        }
+
+        for (Pending pending : batch) {
+            Payment payment = pending.payment();
+            if (applied.contains(payment.getId())) {
+                payment.setStatus(pending.status());
+                payment.setUpdatedAt(pending.event().getTimestamp());
+                payment.setVersion(payment.getVersion() + 1);
+                // The UPDATE bypassed Hibernate, so drop any second-level cache entry for the payment
+                entityManagerFactory.getCache().evict(Payment.class, payment.getId());
+                pending.result().complete(null);
+            } else {
+                conflicts.increment();
+                pending.result().completeExceptionally(new OptimisticLockingFailureException(
+                    "Payment " + payment.getId() + " was modified concurrently"));
+            }
+        }
+    }
+
+    /** Stops queueing and lets the writers flush what is already queued. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+}
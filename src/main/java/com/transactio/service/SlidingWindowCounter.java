@@ -0,0 +1,144 @@
+package com.transactio.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key event counts over a sliding window, without locks or per-key objects.
+ *
+ * <p>Keys are non-zero {@code long}s held in an open-addressed table of {@code capacity} slots.
+ * Each slot owns a ring of {@code buckets} cells, each covering {@code window / buckets}; a cell
+ * packs the bucket's epoch (high 40 bits) and its count (low 24 bits) into one {@code long}, so a
+ * bucket rolls over and is incremented in a single CAS. The window sum reads the ring and skips
+ * cells whose epoch has left the window, so the window slides in steps of one bucket.
+ *
+ * <p>A slot whose key has been idle for a whole window is reused for a new key. When a key finds
+ * neither its slot, a free one nor an idle one within {@link #MAX_PROBES}, it goes untracked (its
+ * event counts as the only one in the window) and {@link #overflows()} is incremented; size the
+ * table well above the number of keys active in one window. Counts are approximate under races
+ * on a reused slot, never by more than the few events in flight.
+ *
+ * <p>Memory is {@code capacity * (buckets + 2) * 8} bytes.
+ */
+final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int MAX_PROBES = 16;
+
+    private final Duration window;
+    private final long bucketMillis;
+    private final int buckets;
+    private final long originMillis;
+    private final int mask;
+    private final AtomicLongArray keys;
+    private final AtomicLongArray lastEpoch;
+    private final AtomicLongArray cells;
+    private final LongAdder overflows = new LongAdder();
+
+    SlidingWindowCounter(Duration window, int buckets, int capacity, long originMillis) {
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window " + window + " cannot be split into " + buckets + " buckets");
+        }
+        this.window = window;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.buckets = buckets;
+        this.originMillis = originMillis;
+        int slots = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = slots - 1;
+        this.keys = new AtomicLongArray(slots);
+        this.lastEpoch = new AtomicLongArray(slots);
+        this.cells = new AtomicLongArray(slots * buckets);
+    }
+
+    Duration window() {
+        return window;
+    }
+
+    long overflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * Records one event for {@code key} at {@code nowMillis} and returns the number of events for the
+     * key in the window ending now, this one included.
+     */
+    int record(long key, long nowMillis) {
+        long epoch = Math.max(0, nowMillis - originMillis) / bucketMillis;
+        int slot = slotFor(key, epoch);
+        if (slot < 0) {
+            overflows.increment();
+            return 1;
+        }
+        int base = slot * buckets;
+        int cell = base + (int) (epoch % buckets);
+        long current;
+        long next;
+        do {
+            current = cells.get(cell);
+            if (current >>> COUNT_BITS == epoch) {
+                next = (current & COUNT_MASK) == COUNT_MASK ? current : current + 1;
+            } else {
+                next = epoch << COUNT_BITS | 1;
+            }
+        } while (next != current && !cells.compareAndSet(cell, current, next));
+
+        long sum = 0;
+        for (int i = base, end = base + buckets; i < end; i++) {
+            long value = cells.get(i);
+            long age = epoch - (value >>> COUNT_BITS);
+            if (age >= 0 && age < buckets) {
+                sum += value & COUNT_MASK;
+            }
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    private int slotFor(long key, long epoch) {
+        int index = (int) mix(key) & mask;
+        int idle = -1;
+        long idleKey = 0;
+        for (int probe = 0; probe < MAX_PROBES; probe++, index = (index + 1) & mask) {
+            long occupant = keys.get(index);
+            if (occupant == key) {
+                touch(index, epoch);
+                return index;
+            }
+            if (occupant == 0) {
+                if (keys.compareAndSet(index, 0, key) || keys.get(index) == key) {
+                    touch(index, epoch);
+                    return index;
+                }
+                continue;
+            }
+            if (idle < 0 && epoch - lastEpoch.get(index) >= buckets) {
+                idle = index;
+                idleKey = occupant;
+            }
+        }
+        // The whole probe sequence was checked for the key first, so reusing an idle slot cannot
+        // split a key that is already present
+        if (idle >= 0 && keys.compareAndSet(idle, idleKey, key)) {
+            touch(idle, epoch);
+            return idle;
+        }
+        return -1;
+    }
+
+    private void touch(int slot, long epoch) {
+        if (lastEpoch.get(slot) != epoch) {
+            lastEpoch.lazySet(slot, epoch);
+        }
+    }
+
+    // Murmur3 finalizer, so sequential or low-entropy keys still spread over the table
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
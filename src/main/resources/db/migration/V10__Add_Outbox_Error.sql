@@ -0,0 +1,3 @@
+-- Rows the relay could not turn into an event are marked sent with the reason, instead of blocking
+-- the outbox; they are purged with the other sent rows after transactio.outbox.retention
+ALTER TABLE payment_outbox ADD COLUMN error TEXT;
@@ -0,0 +1,14 @@
+-- DECIMAL(19,2) rounded three-decimal currencies; balances become whole minor units of the account's
+-- currency (ISO 4217 decimal places), like payments.amount_minor in V7
+
+ALTER TABLE accounts ADD COLUMN balance_minor BIGINT;
+
+UPDATE accounts SET balance_minor = ROUND(balance * CASE
+    WHEN currency IN ('BIF', 'CLP', 'DJF', 'GNF', 'ISK', 'JPY', 'KMF', 'KRW', 'PYG',
+                      'RWF', 'UGX', 'UYI', 'VND', 'VUV', 'XAF', 'XOF', 'XPF') THEN 1
+    WHEN currency IN ('BHD', 'IQD', 'JOD', 'KWD', 'LYD', 'OMR', 'TND') THEN 1000
+    ELSE 100
+END);
+
+ALTER TABLE accounts ALTER COLUMN balance_minor SET NOT NULL;
+ALTER TABLE accounts DROP COLUMN balance;
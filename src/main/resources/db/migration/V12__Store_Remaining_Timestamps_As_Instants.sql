@@ -0,0 +1,12 @@
+-- The outbox, idempotency and account timestamps become UTC instants, like the payments columns in V7.
+-- Existing values were written as the application's local wall-clock time, in the session time zone.
+
+ALTER TABLE payment_outbox
+    ALTER COLUMN created_at TYPE TIMESTAMPTZ USING created_at AT TIME ZONE current_setting('TimeZone'),
+    ALTER COLUMN sent_at TYPE TIMESTAMPTZ USING sent_at AT TIME ZONE current_setting('TimeZone');
+
+ALTER TABLE idempotency_keys
+    ALTER COLUMN created_at TYPE TIMESTAMPTZ USING created_at AT TIME ZONE current_setting('TimeZone');
+
+ALTER TABLE accounts
+    ALTER COLUMN updated_at TYPE TIMESTAMPTZ USING updated_at AT TIME ZONE current_setting('TimeZone');
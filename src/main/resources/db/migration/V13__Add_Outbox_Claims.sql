@@ -0,0 +1,4 @@
+-- The relay claims a batch in one short transaction and publishes it after commit; until
+-- claimed_until passes, other relays skip the batch. A claim left by a relay that stopped
+-- mid-send simply expires, and the rows are published again.
+ALTER TABLE payment_outbox ADD COLUMN claimed_until TIMESTAMPTZ;
@@ -0,0 +1,19 @@
+-- Keyset pagination over all payments: ORDER BY created_at, id
+CREATE INDEX IF NOT EXISTS idx_payments_created_at_id
+    ON payments (created_at, id);
+
+-- Status listings and findByStatus
+CREATE INDEX IF NOT EXISTS idx_payments_status_created_at
+    ON payments (status, created_at, id);
+
+-- User listings are answered as a UNION ALL of one range scan on each of these
+CREATE INDEX IF NOT EXISTS idx_payments_sender_created_at
+    ON payments (sender_id, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_payments_receiver_created_at
+    ON payments (receiver_id, created_at, id);
+
+-- Non-terminal payments are a small, hot slice of the table; keep them in their own small index
+CREATE INDEX IF NOT EXISTS idx_payments_active_created_at
+    ON payments (status, created_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
@@ -0,0 +1,18 @@
+-- Events are written here in the same transaction as the payment change and relayed to Kafka
+CREATE TABLE IF NOT EXISTS payment_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(30) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP
+);
+
+-- The relay only ever scans unsent rows in id order
+CREATE INDEX IF NOT EXISTS idx_payment_outbox_unsent
+    ON payment_outbox (id)
+    WHERE sent_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_payment_outbox_sent_at
+    ON payment_outbox (sent_at)
+    WHERE sent_at IS NOT NULL;
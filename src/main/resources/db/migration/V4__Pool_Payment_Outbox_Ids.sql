@@ -0,0 +1,2 @@
+-- Hibernate allocates outbox ids 50 at a time (pooled optimizer) so outbox inserts can be batched
+ALTER SEQUENCE payment_outbox_id_seq INCREMENT BY 50;
@@ -0,0 +1,10 @@
+-- Per-account, per-currency balances maintained by AccountLedger
+CREATE TABLE IF NOT EXISTS accounts (
+    account_id VARCHAR(255) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    balance DECIMAL(19,2) NOT NULL,
+    -- Bumped by debits only; credits are commutative increments and leave it unchanged
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (account_id, currency)
+);
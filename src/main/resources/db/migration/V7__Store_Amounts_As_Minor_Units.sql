@@ -0,0 +1,37 @@
+-- Amounts become whole minor units of the payment's currency (ISO 4217 decimal places);
+-- timestamps become UTC instants.
+
+ALTER TABLE payments ADD COLUMN amount_minor BIGINT;
+
+UPDATE payments SET amount_minor = ROUND(amount * CASE
+    WHEN currency IN ('BIF', 'CLP', 'DJF', 'GNF', 'ISK', 'JPY', 'KMF', 'KRW', 'PYG',
+                      'RWF', 'UGX', 'UYI', 'VND', 'VUV', 'XAF', 'XOF', 'XPF') THEN 1
+    WHEN currency IN ('BHD', 'IQD', 'JOD', 'KWD', 'LYD', 'OMR', 'TND') THEN 1000
+    ELSE 100
+END);
+
+ALTER TABLE payments ALTER COLUMN amount_minor SET NOT NULL;
+ALTER TABLE payments DROP COLUMN amount;
+
+-- Existing values were written as the application's local wall-clock time. The JDBC driver sets the
+-- session time zone to the JVM's, so current_setting('TimeZone') is the zone they were written in.
+ALTER TABLE payments
+    ALTER COLUMN created_at TYPE TIMESTAMPTZ USING created_at AT TIME ZONE current_setting('TimeZone'),
+    ALTER COLUMN updated_at TYPE TIMESTAMPTZ USING updated_at AT TIME ZONE current_setting('TimeZone');
+
+-- Events still waiting in the outbox carry the same local wall-clock timestamp; give them an offset
+-- so they deserialize into the Instant-based PaymentEvent
+UPDATE payment_outbox
+SET payload = jsonb_set(payload::jsonb, '{timestamp}',
+        to_jsonb(((payload::jsonb ->> 'timestamp')::timestamp AT TIME ZONE current_setting('TimeZone'))))::text
+WHERE sent_at IS NULL
+  AND payload::jsonb ->> 'timestamp' IS NOT NULL;
+
+-- Same for stored idempotent responses, which are replayed as PaymentResponse
+UPDATE idempotency_keys
+SET response = jsonb_set(jsonb_set(response::jsonb,
+        '{createdAt}', to_jsonb(((response::jsonb ->> 'createdAt')::timestamp AT TIME ZONE current_setting('TimeZone')))),
+        '{updatedAt}', to_jsonb(((response::jsonb ->> 'updatedAt')::timestamp AT TIME ZONE current_setting('TimeZone'))))::text
+WHERE response IS NOT NULL
+  AND response::jsonb ->> 'createdAt' IS NOT NULL
+  AND response::jsonb ->> 'updatedAt' IS NOT NULL;
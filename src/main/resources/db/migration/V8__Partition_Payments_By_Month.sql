@@ -0,0 +1,104 @@
+-- payments becomes range-partitioned by calendar month (UTC) of created_at, one partition per
+-- month named payments_YYYY_MM. A partitioned table's primary key must include the partition key,
+-- so it becomes (id, created_at). Old months whose payments are all terminal are later moved,
+-- partition and all, under payments_archive by PaymentPartitionMaintenance.
+
+ALTER TABLE payments RENAME TO payments_unpartitioned;
+ALTER TABLE payments_unpartitioned DROP CONSTRAINT payments_pkey;
+DROP INDEX IF EXISTS idx_payments_created_at_id;
+DROP INDEX IF EXISTS idx_payments_status_created_at;
+DROP INDEX IF EXISTS idx_payments_sender_created_at;
+DROP INDEX IF EXISTS idx_payments_receiver_created_at;
+DROP INDEX IF EXISTS idx_payments_active_created_at;
+
+CREATE TABLE payments (
+    id UUID NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL,
+    sender_id VARCHAR(255) NOT NULL,
+    receiver_id VARCHAR(255) NOT NULL,
+    description VARCHAR(500),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Same indexes as V2; each partition gets its own copy
+CREATE INDEX idx_payments_created_at_id
+    ON payments (created_at, id);
+
+CREATE INDEX idx_payments_status_created_at
+    ON payments (status, created_at, id);
+
+CREATE INDEX idx_payments_sender_created_at
+    ON payments (sender_id, created_at, id);
+
+CREATE INDEX idx_payments_receiver_created_at
+    ON payments (receiver_id, created_at, id);
+
+CREATE INDEX idx_payments_active_created_at
+    ON payments (status, created_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- Cold storage for archived months. Same columns and indexes, so a detached partition attaches
+-- here as it is, without copying rows or building indexes.
+CREATE TABLE payments_archive (LIKE payments INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+ALTER TABLE payments_archive ADD PRIMARY KEY (id, created_at);
+
+CREATE INDEX idx_payments_archive_created_at_id
+    ON payments_archive (created_at, id);
+
+CREATE INDEX idx_payments_archive_status_created_at
+    ON payments_archive (status, created_at, id);
+
+CREATE INDEX idx_payments_archive_sender_created_at
+    ON payments_archive (sender_id, created_at, id);
+
+CREATE INDEX idx_payments_archive_receiver_created_at
+    ON payments_archive (receiver_id, created_at, id);
+
+CREATE INDEX idx_payments_archive_active_created_at
+    ON payments_archive (status, created_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- Creates any missing monthly partitions of payments covering [from_ts, to_ts]; returns how many it
+-- created. Months are computed in UTC so partition bounds don't depend on the session time zone.
+-- A month that already exists under payments_archive is left alone.
+CREATE OR REPLACE FUNCTION create_payment_partitions(from_ts TIMESTAMPTZ, to_ts TIMESTAMPTZ)
+RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', from_ts AT TIME ZONE 'UTC');
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start <= to_ts AT TIME ZONE 'UTC' LOOP
+        partition_name := 'payments_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF payments FOR VALUES FROM (%L) TO (%L)',
+                partition_name,
+                month_start AT TIME ZONE 'UTC',
+                (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC');
+            created := created + 1;
+        END IF;
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Every month that has payments, through three months ahead
+SELECT create_payment_partitions(
+    COALESCE((SELECT min(created_at) FROM payments_unpartitioned), now()),
+    GREATEST((SELECT max(created_at) FROM payments_unpartitioned), now() + INTERVAL '3 months'));
+
+INSERT INTO payments (id, amount_minor, currency, status, created_at, updated_at,
+                      sender_id, receiver_id, description)
+SELECT id, amount_minor, currency, status, created_at, updated_at,
+       sender_id, receiver_id, description
+FROM payments_unpartitioned;
+
+DROP TABLE payments_unpartitioned;
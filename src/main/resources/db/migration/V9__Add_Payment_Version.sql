@@ -0,0 +1,7 @@
+-- Optimistic-locking version for payments (Payment.version). Status transitions are written in
+-- batches by PaymentTransitionWriter, each row guarded by the version its writer last saw.
+-- A constant default makes this a catalog-only change; it propagates to every partition.
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Archived months are attached under payments_archive, so it needs the same columns
+ALTER TABLE payments_archive ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,114 @@
+package com.transactio.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PaymentEventBinaryCodecTest {
+
+  // Same modules and features as the application's ObjectMapper
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private static PaymentEvent createdEvent() {
+    return PaymentEvent.builder()
+        .paymentId(UUID.randomUUID())
+        .userId(UUID.randomUUID())
+        .amount(Money.of(new BigDecimal("150.50"), "USD"))
+        .eventType(PaymentEventType.PAYMENT_CREATED)
+        .status(PaymentStatus.PENDING)
+        .timestamp(Instant.now())
+        .message("Payment created successfully")
+        .receiverId(UUID.randomUUID().toString())
+        .description("Invoice 2024-0042")
+        .build();
+  }
+
+  @Test
+  void createdEventIsLessThanHalfItsJsonSize() throws Exception {
+    PaymentEvent event = createdEvent();
+
+    byte[] binary = PaymentEventBinaryCodec.encode(event);
+    byte[] json = objectMapper.writeValueAsBytes(event);
+
+    // 3 header, 32 ids, 12 amount and currency, 2 enums, 8 timestamp, then 2 + UTF-8 per string
+    assertThat(binary).hasSize(3 + 32 + 12 + 2 + 8 + (2 + 28) + (2 + 36) + (2 + 17));
+    assertThat(binary.length).isLessThan(json.length / 2);
+  }
+
+  @Test
+  void createdEventRoundTripsAsVersion2() {
+    PaymentEvent event = createdEvent();
+
+    byte[] binary = PaymentEventBinaryCodec.encode(event);
+    PaymentEvent decoded = PaymentEventBinaryCodec.decode(binary);
+
+    assertThat(binary[0]).isEqualTo(PaymentEventBinaryCodec.VERSION);
+    event.setTimestamp(event.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+    assertThat(decoded).isEqualTo(event);
+  }
+
+  @Test
+  void eventWithoutReceiverIsVersion1AndKeepsNulls() {
+    PaymentEvent event = PaymentEvent.builder()
+        .paymentId(UUID.randomUUID())
+        .amount(Money.of(new BigDecimal("-0.05"), "EUR"))
+        .eventType(PaymentEventType.PAYMENT_FAILED)
+        .message("Zahlung fehlgeschlagen: Deckung unzureichend ✗")
+        .build();
+
+    byte[] binary = PaymentEventBinaryCodec.encode(event);
+
+    assertThat(binary[0]).isEqualTo((byte) 1);
+    assertThat(PaymentEventBinaryCodec.decode(binary)).isEqualTo(event);
+  }
+
+  @Test
+  void zeroDecimalCurrencyKeepsItsScale() {
+    PaymentEvent event = createdEvent();
+    event.setAmount(Money.of(new BigDecimal("1500"), "JPY"));
+
+    Money amount = PaymentEventBinaryCodec.decode(PaymentEventBinaryCodec.encode(event)).getAmount();
+
+    assertThat(amount).isEqualTo(Money.ofMinor(1500, Money.currency("JPY")));
+    assertThat(amount.toPlainString()).isEqualTo("1500");
+  }
+
+  @Test
+  void amountWrittenWithAnotherScaleIsRescaled() {
+    // Version 1 record from before amounts were minor units: 150.5000 USD as unscaled 1505000, scale 4
+    ByteBuffer buffer = ByteBuffer.allocate(2 + 12);
+    buffer.put((byte) 1).put((byte) (1 << 2 | 1 << 3));
+    buffer.putLong(1_505_000).put((byte) 4).put("USD".getBytes(StandardCharsets.US_ASCII));
+
+    Money amount = PaymentEventBinaryCodec.decode(buffer.array()).getAmount();
+
+    assertThat(amount.minorUnits()).isEqualTo(15_050);
+    assertThat(amount.scale()).isEqualTo(2);
+  }
+
+  @Test
+  void truncatedOrUnknownVersionIsRejected() {
+    byte[] binary = PaymentEventBinaryCodec.encode(createdEvent());
+
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PaymentEventBinaryCodec.decode(Arrays.copyOf(binary, binary.length - 1)))
+        .withMessage("Truncated payment event");
+    binary[0] = 9;
+    assertThatIllegalArgumentException()
+        .isThrownBy(() -> PaymentEventBinaryCodec.decode(binary))
+        .withMessageContaining("version: 9");
+  }
+}
@@ -0,0 +1,66 @@
+package com.transactio.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void amountIsStoredInTheCurrencysMinorUnits() {
+        assertThat(Money.of(new BigDecimal("150.5"), "USD").minorUnits()).isEqualTo(15_050);
+        assertThat(Money.of(new BigDecimal("1500"), "JPY").minorUnits()).isEqualTo(1_500);
+        assertThat(Money.of(new BigDecimal("1.234"), "BHD").minorUnits()).isEqualTo(1_234);
+        // Trailing zeros beyond the currency's decimals are not extra precision
+        assertThat(Money.of(new BigDecimal("2.5000"), "EUR").minorUnits()).isEqualTo(250);
+    }
+
+    @Test
+    void moreDecimalsThanTheCurrencyAllowsAreRejected() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> Money.of(new BigDecimal("10.005"), "USD"))
+            .withMessage("10.005 is not a valid USD amount");
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> Money.of(new BigDecimal("0.5"), "JPY"));
+    }
+
+    @Test
+    void currencyWithoutMinorUnitIsRejected() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> Money.of(BigDecimal.ONE, "XAU"))
+            .withMessage("Currency XAU has no minor unit");
+    }
+
+    @Test
+    void plainStringHasExactlyTheCurrencysScale() {
+        assertThat(Money.of(new BigDecimal("150.5"), "USD").toPlainString()).isEqualTo("150.50");
+        assertThat(Money.of(new BigDecimal("-0.05"), "USD").toPlainString()).isEqualTo("-0.05");
+        assertThat(Money.of(new BigDecimal("-12.34"), "USD").toPlainString()).isEqualTo("-12.34");
+        assertThat(Money.of(new BigDecimal("0.001"), "BHD").toPlainString()).isEqualTo("0.001");
+        assertThat(Money.of(new BigDecimal("1500"), "JPY").toPlainString()).isEqualTo("1500");
+        assertThat(Money.of(new BigDecimal("150.5"), "USD").toBigDecimal()).isEqualTo(new BigDecimal("150.50"));
+    }
+
+    @Test
+    void equalityIgnoresTheScaleOfTheInput() {
+        assertThat(Money.of(new BigDecimal("1.5"), "USD")).isEqualTo(Money.of(new BigDecimal("1.50"), "USD"))
+            .isNotEqualTo(Money.of(new BigDecimal("1.50"), "EUR"));
+    }
+
+    @Test
+    void jsonKeepsTheScaleBothWays() throws Exception {
+        Money money = Money.of(new BigDecimal("150.5"), "USD");
+
+        String json = objectMapper.writeValueAsString(money);
+
+        assertThat(json).isEqualTo("{\"amount\":150.50,\"currency\":\"USD\"}");
+        assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(money);
+    }
+}
@@ -0,0 +1,38 @@
+package com.transactio.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentIdTest {
+
+    @Test
+    void newIdCarriesTheMillisecondItWasIssued() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        UUID id = Payment.newId();
+        Instant after = Instant.now();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(Payment.idTimestamp(id)).hasValueSatisfying(issued -> assertThat(issued).isBetween(before, after));
+    }
+
+    @Test
+    void idsIssuedInLaterMillisecondsSortAfterEarlierOnes() throws InterruptedException {
+        UUID first = Payment.newId();
+        Thread.sleep(2);
+        UUID second = Payment.newId();
+
+        // Compared as unsigned, the way Postgres orders uuid values
+        assertThat(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits())).isNegative();
+    }
+
+    @Test
+    void randomIdsHaveNoTimestamp() {
+        assertThat(Payment.idTimestamp(UUID.randomUUID())).isEmpty();
+    }
+}
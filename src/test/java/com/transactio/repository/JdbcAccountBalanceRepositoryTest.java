@@ -0,0 +1,120 @@
+package com.transactio.repository;
+
+import com.transactio.model.AccountBalance;
+import com.transactio.repository.AccountBalanceRepository.BalanceUpdate;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link JdbcAccountBalanceRepository} against Postgres: the debit version check, and that
+ * transfers in opposite directions lock their rows in one order and never deadlock.
+ */
+class JdbcAccountBalanceRepositoryTest {
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+    private static JdbcAccountBalanceRepository repository;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        // One instance for both, so the repository's statements join the template's transactions
+        DataSource dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        repository = new JdbcAccountBalanceRepository(jdbc,
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void resetAccounts() {
+        jdbc.update("delete from accounts");
+        repository.applyAll(List.of(credit("alice", 1_000_000), credit("bob", 1_000_000)));
+    }
+
+    @Test
+    void debitWithTheCurrentVersionIsApplied() {
+        AccountBalance alice = repository.find("alice", "USD").orElseThrow();
+
+        boolean applied = repository.applyAll(List.of(debit("alice", 300, alice.version()), credit("carol", 300)));
+
+        assertThat(applied).isTrue();
+        assertThat(repository.find("alice", "USD").orElseThrow())
+            .isEqualTo(new AccountBalance("alice", "USD", 999_700, alice.version() + 1));
+        assertThat(repository.find("carol", "USD").orElseThrow().balanceMinor()).isEqualTo(300);
+    }
+
+    @Test
+    void staleDebitAppliesNothing() {
+        AccountBalance alice = repository.find("alice", "USD").orElseThrow();
+
+        boolean applied = repository.applyAll(List.of(
+            debit("bob", 100, 0), debit("alice", 100, alice.version() + 1), credit("carol", 200)));
+
+        assertThat(applied).isFalse();
+        assertThat(repository.find("alice", "USD").orElseThrow()).isEqualTo(alice);
+        assertThat(repository.find("bob", "USD").orElseThrow().balanceMinor()).isEqualTo(1_000_000);
+        assertThat(repository.find("carol", "USD")).isEmpty();
+    }
+
+    @Test
+    void oppositeTransfersDoNotDeadlock() throws Exception {
+        int transfers = 300;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            // Updates listed in opposite orders, so only the repository's lock order keeps them apart
+            CompletableFuture<Integer> aliceToBob = CompletableFuture.supplyAsync(
+                () -> transferRepeatedly("alice", "bob", transfers), executor);
+            CompletableFuture<Integer> bobToAlice = CompletableFuture.supplyAsync(
+                () -> transferRepeatedly("bob", "alice", transfers), executor);
+
+            int applied = aliceToBob.get(60, TimeUnit.SECONDS) - bobToAlice.get(60, TimeUnit.SECONDS);
+
+            long alice = repository.find("alice", "USD").orElseThrow().balanceMinor();
+            long bob = repository.find("bob", "USD").orElseThrow().balanceMinor();
+            assertThat(alice).isEqualTo(1_000_000 - applied);
+            assertThat(alice + bob).isEqualTo(2_000_000);
+        }
+    }
+
+    /** Moves 1 minor unit {@code count} times, re-reading the version after a conflict; returns how many went through. */
+    private static int transferRepeatedly(String from, String to, int count) {
+        int applied = 0;
+        for (int i = 0; i < count; i++) {
+            long version = repository.find(from, "USD").orElseThrow().version();
+            if (repository.applyAll(List.of(debit(from, 1, version), credit(to, 1)))) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private static BalanceUpdate debit(String accountId, long amountMinor, long expectedVersion) {
+        return new BalanceUpdate(accountId, "USD", -amountMinor, expectedVersion);
+    }
+
+    private static BalanceUpdate credit(String accountId, long amountMinor) {
+        return new BalanceUpdate(accountId, "USD", amountMinor, null);
+    }
+}
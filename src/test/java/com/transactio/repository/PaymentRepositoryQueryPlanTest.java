@@ -0,0 +1,188 @@
+package com.transactio.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.model.PaymentStatus;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks with EXPLAIN that the keyset listing queries in {@link PaymentRepository} are answered by
+ * the {@code idx_payments_*} indexes on every partition they touch, and never by a sequential scan,
+ * and that a lookup bounded by an id's issue time opens only the partitions of that range.
+ * The SQL is read from the repository's annotations, so the test follows any rewrite of the queries.
+ */
+class PaymentRepositoryQueryPlanTest {
+
+    private static final int ROWS = 100_000;
+
+    // Fixed rather than now(), so the month partitions and their sizes are the same on every run
+    private static final Instant END = Instant.parse("2025-03-31T00:00:00Z");
+
+    // A month and a bit of payments up to END, 1000 users, 10% FAILED and 10% PENDING
+    private static final String SEED = """
+        insert into payments (id, amount_minor, currency, status, created_at, updated_at,
+                              sender_id, receiver_id, description)
+        select gen_random_uuid(), 1000 + g, 'USD',
+               case g % 10 when 0 then 'FAILED' when 1 then 'PENDING' else 'COMPLETED' end,
+               ?::timestamptz - g * interval '30 seconds', ?::timestamptz,
+               'user-' || (g % 1000), 'user-' || ((g + 1) % 1000), 'Plan test payment ' || g
+        from generate_series(1, ?) g""";
+
+    // Indexes on a partition are attached to the index of the same definition on payments
+    private static final String PARENT_INDEX = """
+        select parent.relname from pg_class child
+        join pg_inherits i on i.inhrelid = child.oid
+        join pg_class parent on parent.oid = i.inhparent
+        where child.relname = ?""";
+
+    private static final String PARTITIONS = """
+        select c.relname from pg_inherits i
+        join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'payments'::regclass""";
+
+    private static final Pattern PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        Flyway.configure().dataSource(postgres.getPostgresDatabase()).load().migrate();
+        jdbc = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbc.queryForObject("select create_payment_partitions(?::timestamptz - interval '2 months', ?::timestamptz)",
+            Integer.class, END.toString(), END.toString());
+        jdbc.update(SEED, END.toString(), END.toString(), ROWS);
+        // V8 also created partitions around the real current month; an empty partition is cheapest to
+        // seq scan, so keep only the seeded ones and every scan in a plan is on rows
+        for (String partition : jdbc.queryForList(PARTITIONS, String.class)) {
+            if (!jdbc.queryForObject("select exists (select 1 from " + partition + ")", Boolean.class)) {
+                jdbc.execute("drop table " + partition);
+            }
+        }
+        jdbc.execute("analyze payments");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void pageAfterUsesCreatedAtIndex() throws Exception {
+        Plan plan = explain(query("findPageAfter", Instant.class, UUID.class, int.class), Map.of());
+
+        assertThat(plan.nodeTypes()).doesNotContain("Seq Scan");
+        assertThat(plan.indexes()).containsExactly("idx_payments_created_at_id");
+    }
+
+    @Test
+    void pageByStatusAfterUsesStatusIndex() throws Exception {
+        Plan plan = explain(query("findPageByStatusAfter", PaymentStatus.class, Instant.class, UUID.class, int.class),
+            Map.of("status", "'" + PaymentStatus.FAILED.name() + "'"));
+
+        assertThat(plan.nodeTypes()).doesNotContain("Seq Scan");
+        assertThat(plan.indexes()).containsExactly("idx_payments_status_created_at");
+    }
+
+    @Test
+    void pageForUserAfterScansSenderAndReceiverIndexes() throws Exception {
+        Plan plan = explain(query("findPageForUserAfter", String.class, Instant.class, UUID.class, int.class),
+            Map.of("userId", "'user-42'"));
+
+        assertThat(plan.nodeTypes()).doesNotContain("Seq Scan");
+        // One range scan per UNION ALL branch
+        assertThat(plan.indexes())
+            .containsExactlyInAnyOrder("idx_payments_sender_created_at", "idx_payments_receiver_created_at");
+    }
+
+    @Test
+    void lookupBoundedByIssueTimeOpensOnlyThatMonthsPartition() throws Exception {
+        Instant issued = Instant.parse("2025-03-15T12:00:00Z");
+        Plan plan = explain(query("findByIdCreatedBetween", UUID.class, Instant.class, Instant.class), Map.of(
+            "from", "'" + issued.minus(Duration.ofDays(1)) + "'::timestamptz",
+            "to", "'" + issued.plus(Duration.ofDays(1)) + "'::timestamptz"));
+
+        assertThat(plan.nodeTypes()).doesNotContain("Seq Scan");
+        assertThat(plan.relations()).containsExactly("payments_2025_03");
+    }
+
+    private record Plan(List<String> nodeTypes, Set<String> indexes, Set<String> relations) {
+    }
+
+    private static String query(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method repositoryMethod = PaymentRepository.class.getMethod(method, parameterTypes);
+        NativeQuery nativeQuery = repositoryMethod.getAnnotation(NativeQuery.class);
+        return nativeQuery != null ? nativeQuery.value() : repositoryMethod.getAnnotation(Query.class).value();
+    }
+
+    /**
+     * EXPLAINs {@code sql} with its named parameters inlined: a keyset cursor a week back, a page of
+     * 50, and {@code values} for the rest. Returns every plan node type, the payments indexes used and the partitions scanned.
+     */
+    private Plan explain(String sql, Map<String, String> values) throws Exception {
+        String cursor = "'" + END.minus(Duration.ofDays(7)) + "'::timestamptz";
+        // SpEL parameters such as :#{#status.name()} are bound by name
+        String bound = sql.replaceAll(":#\\{#(\\w+)[^}]*}", ":$1");
+        Matcher matcher = PARAMETER.matcher(bound);
+        StringBuilder inlined = new StringBuilder();
+        while (matcher.find()) {
+            String value = switch (matcher.group(1)) {
+                case "createdAt" -> cursor;
+                case "id" -> "'" + new UUID(0, 0) + "'::uuid";
+                case "limit" -> "50";
+                default -> values.get(matcher.group(1));
+            };
+            assertThat(value).as("value for :%s", matcher.group(1)).isNotNull();
+            matcher.appendReplacement(inlined, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(inlined);
+
+        String json = jdbc.queryForObject("explain (format json) " + inlined, String.class);
+        List<String> nodeTypes = new ArrayList<>();
+        Set<String> indexes = new HashSet<>();
+        Set<String> relations = new HashSet<>();
+        collect(objectMapper.readTree(json).get(0).get("Plan"), nodeTypes, indexes, relations);
+        return new Plan(nodeTypes, indexes, relations);
+    }
+
+    private static void collect(JsonNode node, List<String> nodeTypes, Set<String> indexes, Set<String> relations) {
+        nodeTypes.add(node.get("Node Type").asText());
+        if (node.has("Relation Name")) {
+            relations.add(node.get("Relation Name").asText());
+        }
+        if (node.has("Index Name")) {
+            String index = node.get("Index Name").asText();
+            indexes.add(jdbc.queryForList(PARENT_INDEX, String.class, index).stream().findFirst().orElse(index));
+        }
+        if (node.has("Plans")) {
+            for (JsonNode child : node.get("Plans")) {
+                collect(child, nodeTypes, indexes, relations);
+            }
+        }
+    }
+}
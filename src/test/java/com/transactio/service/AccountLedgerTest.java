@@ -0,0 +1,194 @@
+package com.transactio.service;
+
+import com.transactio.exception.InsufficientFundsException;
+import com.transactio.model.AccountBalance;
+import com.transactio.model.Money;
+import com.transactio.repository.AccountBalanceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link AccountLedger} against an in-memory {@link AccountBalanceRepository} that checks
+ * debit versions like the real one, so conflicts with other writers can be staged.
+ */
+class AccountLedgerTest {
+
+    private final InMemoryBalances repository = new InMemoryBalances();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountLedger ledger = new AccountLedger(repository, true, 4, 256, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        ledger.shutdown();
+    }
+
+    @Test
+    void transferMovesMoneyAndRejectsAnOverdraft() throws Exception {
+        repository.put("alice", 1_000);
+
+        await(ledger.transfer("alice", "bob", usd(600)));
+
+        assertThatThrownBy(() -> await(ledger.transfer("alice", "bob", usd(600))))
+            .hasCauseInstanceOf(InsufficientFundsException.class);
+        assertThat(repository.balance("alice")).isEqualTo(400);
+        assertThat(repository.balance("bob")).isEqualTo(600);
+        assertThat(meterRegistry.counter("transactio.ledger.insufficient.funds").count()).isEqualTo(1);
+    }
+
+    @Test
+    void debitsOfOneAccountAreCheckedInSubmissionOrder() throws Exception {
+        repository.put("alice", 500);
+
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(ledger.transfer("alice", "receiver-" + i, usd(100)));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            CompletableFuture<Void> result = results.get(i);
+            if (i < 5) {
+                await(result);
+            } else {
+                assertThatThrownBy(() -> await(result)).hasCauseInstanceOf(InsufficientFundsException.class);
+            }
+        }
+        assertThat(repository.balance("alice")).isZero();
+    }
+
+    @Test
+    void creditFromAnotherLaneIsSeenWhenTheCacheIsShort() throws Exception {
+        // Caches alice at 0
+        assertThatThrownBy(() -> await(ledger.transfer("alice", "carol", usd(100))))
+            .hasCauseInstanceOf(InsufficientFundsException.class);
+        repository.put("bob", 500);
+        await(ledger.transfer("bob", "alice", usd(500)));
+
+        await(ledger.transfer("alice", "carol", usd(300)));
+
+        assertThat(repository.balance("alice")).isEqualTo(200);
+        assertThat(repository.balance("carol")).isEqualTo(300);
+    }
+
+    @Test
+    void versionConflictReloadsTheBalanceAndRetries() throws Exception {
+        repository.put("alice", 1_000);
+        await(ledger.transfer("alice", "bob", usd(100)));
+        // Another node debits alice behind this lane's cached version
+        repository.debitElsewhere("alice", 700);
+
+        await(ledger.transfer("alice", "bob", usd(200)));
+
+        assertThat(repository.balance("alice")).isZero();
+        assertThat(repository.balance("bob")).isEqualTo(300);
+        assertThat(meterRegistry.counter("transactio.ledger.conflicts").count()).isEqualTo(1);
+        assertThatThrownBy(() -> await(ledger.transfer("alice", "bob", usd(1))))
+            .hasCauseInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    void transferFailsAfterConflictsOnEveryAttempt() {
+        repository.put("alice", 1_000);
+        repository.conflictsLeft.set(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> await(ledger.transfer("alice", "bob", usd(100))))
+            .hasCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(meterRegistry.counter("transactio.ledger.conflicts").count()).isEqualTo(3);
+        assertThat(repository.balance("alice")).isEqualTo(1_000);
+    }
+
+    @Test
+    void failedWriteFailsTheBatchAndTheLaneRecovers() throws Exception {
+        repository.put("alice", 1_000);
+        repository.failNext.set(true);
+
+        assertThatThrownBy(() -> await(ledger.transfer("alice", "bob", usd(100))))
+            .hasRootCauseMessage("connection reset");
+        await(ledger.transfer("alice", "bob", usd(100)));
+
+        assertThat(repository.balance("alice")).isEqualTo(900);
+    }
+
+    @Test
+    void reversalIsAppliedEvenIfItOverdraws() throws Exception {
+        repository.put("alice", 100);
+        await(ledger.transfer("alice", "bob", usd(100)));
+        repository.debitElsewhere("bob", 100);
+
+        await(ledger.reverse("alice", "bob", usd(100)));
+
+        assertThat(repository.balance("bob")).isEqualTo(-100);
+        assertThat(repository.balance("alice")).isEqualTo(100);
+    }
+
+    private static Money usd(long minorUnits) {
+        return Money.ofMinor(minorUnits, Money.currency("USD"));
+    }
+
+    private static void await(CompletableFuture<Void> result) throws Exception {
+        result.get(5, TimeUnit.SECONDS);
+    }
+
+    /** USD balances with the debit version check of {@code JdbcAccountBalanceRepository}. */
+    private static final class InMemoryBalances implements AccountBalanceRepository {
+
+        private final Map<String, AccountBalance> rows = new HashMap<>();
+        final AtomicInteger conflictsLeft = new AtomicInteger();
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        synchronized void put(String accountId, long balanceMinor) {
+            rows.put(accountId, new AccountBalance(accountId, "USD", balanceMinor, 0));
+        }
+
+        synchronized long balance(String accountId) {
+            return rows.get(accountId).balanceMinor();
+        }
+
+        synchronized void debitElsewhere(String accountId, long amountMinor) {
+            AccountBalance row = rows.get(accountId);
+            rows.put(accountId, new AccountBalance(accountId, "USD", row.balanceMinor() - amountMinor, row.version() + 1));
+        }
+
+        @Override
+        public synchronized Optional<AccountBalance> find(String accountId, String currency) {
+            return Optional.ofNullable(rows.get(accountId));
+        }
+
+        @Override
+        public synchronized boolean applyAll(List<BalanceUpdate> updates) {
+            if (failNext.getAndSet(false)) {
+                throw new IllegalStateException("connection reset");
+            }
+            for (BalanceUpdate update : updates) {
+                AccountBalance row = rows.get(update.accountId());
+                if (update.expectedVersion() != null
+                    && (row == null || row.version() != update.expectedVersion() || conflictsLeft.get() > 0)) {
+                    conflictsLeft.decrementAndGet();
+                    return false;
+                }
+            }
+            for (BalanceUpdate update : updates) {
+                AccountBalance row = rows.getOrDefault(update.accountId(),
+                    new AccountBalance(update.accountId(), "USD", 0, 0));
+                long version = update.expectedVersion() != null ? row.version() + 1 : row.version();
+                rows.put(update.accountId(),
+                    new AccountBalance(update.accountId(), "USD", row.balanceMinor() + update.deltaMinor(), version));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.exception.PaymentDeclinedException;
+import com.transactio.model.Money;
+import com.transactio.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Loads rules from a temporary file and evaluates them at chosen times, so velocity windows can be
+ * rolled over without waiting.
+ */
+class FraudScreenTest {
+
+    private static final String RULES = """
+        { "rules": [
+          { "name": "max-usd", "type": "max-amount", "currency": "USD", "amount": "100.00", "action": "decline" },
+          { "name": "blocked", "type": "blocked-currency", "currencies": ["KPW"], "action": "decline" },
+          { "name": "burst", "type": "velocity", "window": "10s", "max": 3, "action": "decline" },
+          { "name": "burst-watch", "type": "velocity", "window": "10s", "max": 2, "action": "flag" }
+        ] }""";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    private FraudScreen screen(String rules) throws IOException {
+        Path file = directory.resolve("fraud-rules.json");
+        Files.writeString(file, rules);
+        return new FraudScreen(objectMapper, meterRegistry, new FileSystemResource(file), true, 1024, 10);
+    }
+
+    @Test
+    void amountAboveTheCurrencysLimitIsDeclined() throws IOException {
+        FraudScreen screen = screen(RULES);
+        long now = System.currentTimeMillis();
+
+        assertThat(screen.evaluate("alice", usd("100.00"), now)).isNull();
+        assertThat(screen.evaluate("bob", usd("100.01"), now)).isEqualTo("max-usd");
+        // Same number in another currency has no limit
+        assertThat(screen.evaluate("carol", Money.of(new BigDecimal("100.01"), "EUR"), now)).isNull();
+        assertThat(screen.evaluate("dave", Money.of(BigDecimal.ONE, "KPW"), now)).isEqualTo("blocked");
+    }
+
+    @Test
+    void velocityLimitDeclinesUntilTheWindowRollsOver() throws IOException {
+        FraudScreen screen = screen(RULES);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(screen.evaluate("alice", usd("1.00"), now + i)).isNull();
+        }
+        assertThat(screen.evaluate("alice", usd("1.00"), now + 3)).isEqualTo("burst");
+        assertThat(screen.evaluate("bob", usd("1.00"), now + 3)).isNull();
+
+        // Every event above is in one bucket, which leaves the window a full window later
+        assertThat(screen.evaluate("alice", usd("1.00"), now + 10_999)).isNull();
+    }
+
+    @Test
+    void flagRuleIsCountedButDoesNotDecline() throws IOException {
+        FraudScreen screen = screen(RULES);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(screen.evaluate("alice", usd("1.00"), now)).isNull();
+        }
+
+        assertThat(meterRegistry.get("transactio.fraud.rule.hits").tag("rule", "burst-watch").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("transactio.fraud.rule.hits").tag("rule", "burst").counter().count())
+            .isZero();
+    }
+
+    @Test
+    void screenThrowsForADeclinedPayment() throws IOException {
+        FraudScreen screen = screen(RULES);
+        Payment payment = new Payment();
+        payment.setSenderId("alice");
+        payment.setAmount(usd("500.00"));
+
+        assertThatThrownBy(() -> screen.screen(payment))
+            .isInstanceOf(PaymentDeclinedException.class)
+            .hasMessage("Declined by fraud rule 'max-usd'");
+    }
+
+    @Test
+    void changedFileIsReloadedAndKeepsVelocityCounts() throws IOException {
+        FraudScreen screen = screen(RULES);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            screen.evaluate("alice", usd("1.00"), now);
+        }
+
+        Path file = directory.resolve("fraud-rules.json");
+        Files.writeString(file, RULES.replace("\"100.00\"", "\"1000.00\""));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(now + 60_000));
+        screen.reloadIfChanged();
+
+        assertThat(screen.evaluate("bob", usd("500.00"), now)).isNull();
+        // The 10s window was still configured, so alice's three events carried over
+        assertThat(screen.evaluate("alice", usd("1.00"), now)).isEqualTo("burst");
+    }
+
+    @Test
+    void brokenFileKeepsThePreviousRules() throws IOException {
+        FraudScreen screen = screen(RULES);
+        long now = System.currentTimeMillis();
+
+        Path file = directory.resolve("fraud-rules.json");
+        Files.writeString(file, "{ \"rules\": [ { \"name\": \"x\", \"type\": \"no-such-type\" } ] }");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(now + 60_000));
+        screen.reloadIfChanged();
+
+        assertThat(screen.evaluate("bob", usd("500.00"), now)).isEqualTo("max-usd");
+    }
+
+    private static Money usd(String amount) {
+        return Money.of(new BigDecimal(amount), "USD");
+    }
+}
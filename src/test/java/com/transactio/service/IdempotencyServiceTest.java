@@ -0,0 +1,190 @@
+package com.transactio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transactio.dto.PaymentRequest;
+import com.transactio.dto.PaymentResponse;
+import com.transactio.exception.IdempotencyKeyReusedException;
+import com.transactio.model.IdempotencyRecord;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import com.transactio.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Exercises both tiers of {@link IdempotencyService} with the payment service and the key table
+ * mocked: the per-node hot map, and the durable record other nodes (or a restarted node) replay from.
+ */
+class IdempotencyServiceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final PaymentService paymentService = mock(PaymentService.class);
+    private final IdempotencyRecordRepository recordRepository = mock(IdempotencyRecordRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final PaymentRequest request = new PaymentRequest(new BigDecimal("150.50"), "USD", "alice", "bob", "Rent");
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(recordRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(recordRepository.claim(anyString(), anyString(), any())).thenReturn(1);
+        when(paymentService.createPayment(any())).thenAnswer(invocation -> response());
+    }
+
+    private IdempotencyService newService() {
+        IdempotencyService service = new IdempotencyService(paymentService, recordRepository, transactionTemplate,
+            objectMapper, Duration.ofMinutes(10), 1000);
+        ReflectionTestUtils.setField(service, "waitTimeout", Duration.ofSeconds(5));
+        return service;
+    }
+
+    private static PaymentResponse response() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        return new PaymentResponse(UUID.randomUUID(), Money.of(new BigDecimal("150.50"), "USD"),
+            PaymentStatus.PENDING, "alice", "bob", "Rent", now, now);
+    }
+
+    @Test
+    void retryOnTheSameNodeReplaysTheFirstResponse() {
+        IdempotencyService service = newService();
+
+        IdempotencyService.Result first = service.createPayment("key-1", request);
+        // Same payment with the amount written differently
+        IdempotencyService.Result retry = service.createPayment("key-1",
+            new PaymentRequest(new BigDecimal("150.5"), "USD", "alice", "bob", "Rent"));
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response()).isSameAs(first.response());
+        verify(paymentService, times(1)).createPayment(any());
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        IdempotencyService service = newService();
+        service.createPayment("key-1", request);
+
+        PaymentRequest other = new PaymentRequest(new BigDecimal("99.00"), "USD", "alice", "bob", "Rent");
+
+        assertThatThrownBy(() -> service.createPayment("key-1", other))
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+        verify(paymentService, times(1)).createPayment(any());
+    }
+
+    @Test
+    void retryOnAnotherNodeReplaysTheStoredResponse() {
+        newService().createPayment("key-1", request);
+        IdempotencyRecord stored = storedRecord("key-1");
+        when(recordRepository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        IdempotencyService.Result retry = newService().createPayment("key-1", request);
+
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response().getId()).isEqualTo(stored.getPaymentId());
+        verify(paymentService, times(1)).createPayment(any());
+    }
+
+    @Test
+    void storedKeyReusedForAnotherRequestIsRejected() {
+        newService().createPayment("key-1", request);
+        IdempotencyRecord stored = storedRecord("key-1");
+        when(recordRepository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        PaymentRequest other = new PaymentRequest(new BigDecimal("150.50"), "EUR", "alice", "bob", "Rent");
+
+        assertThatThrownBy(() -> newService().createPayment("key-1", other))
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void keyCommittedConcurrentlyByAnotherNodeIsReplayed() {
+        newService().createPayment("key-1", request);
+        IdempotencyRecord stored = storedRecord("key-1");
+        // Not committed when we look, committed by the time our claim stops blocking
+        when(recordRepository.findById("key-1")).thenReturn(Optional.empty(), Optional.of(stored));
+        when(recordRepository.claim(eq("key-1"), anyString(), any())).thenReturn(0);
+
+        IdempotencyService.Result result = newService().createPayment("key-1", request);
+
+        assertThat(result.replayed()).isTrue();
+        assertThat(result.response().getId()).isEqualTo(stored.getPaymentId());
+        verify(paymentService, times(1)).createPayment(any());
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForTheFirstRequest() throws Exception {
+        IdempotencyService service = newService();
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(paymentService.createPayment(any())).thenAnswer(invocation -> {
+            creating.countDown();
+            release.await();
+            return response();
+        });
+
+        CompletableFuture<IdempotencyService.Result> first =
+            CompletableFuture.supplyAsync(() -> service.createPayment("key-1", request));
+        assertThat(creating.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<IdempotencyService.Result> duplicate =
+            CompletableFuture.supplyAsync(() -> service.createPayment("key-1", request));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+
+        release.countDown();
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).response()).isSameAs(first.get(5, TimeUnit.SECONDS).response());
+        assertThat(duplicate.get().replayed()).isTrue();
+        verify(paymentService, times(1)).createPayment(any());
+    }
+
+    @Test
+    void failedRequestIsNotReplayed() {
+        IdempotencyService service = newService();
+        when(paymentService.createPayment(any()))
+            .thenThrow(new IllegalStateException("database down"))
+            .thenAnswer(invocation -> response());
+
+        assertThatThrownBy(() -> service.createPayment("key-1", request)).hasMessage("database down");
+        IdempotencyService.Result retry = service.createPayment("key-1", request);
+
+        assertThat(retry.replayed()).isFalse();
+        verify(paymentService, times(2)).createPayment(any());
+    }
+
+    /** The row the first request's transaction committed for {@code key}. */
+    private IdempotencyRecord storedRecord(String key) {
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<UUID> paymentId = ArgumentCaptor.forClass(UUID.class);
+        ArgumentCaptor<String> response = ArgumentCaptor.forClass(String.class);
+        verify(recordRepository).claim(eq(key), hash.capture(), any());
+        verify(recordRepository).complete(eq(key), paymentId.capture(), response.capture());
+        return new IdempotencyRecord(key, hash.getValue(), paymentId.getValue(), response.getValue(), Instant.now());
+    }
+}
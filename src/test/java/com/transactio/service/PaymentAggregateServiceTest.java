@@ -0,0 +1,176 @@
+package com.transactio.service;
+
+import com.transactio.config.KafkaStreamsConfig;
+import com.transactio.dto.PaymentAggregatesResponse;
+import com.transactio.dto.PaymentVolumeResponse;
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventBinarySerializer;
+import com.transactio.event.PaymentEventType;
+import com.transactio.exception.AggregatesUnavailableException;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs the aggregates topology against an embedded broker and checks what {@link PaymentAggregateService}
+ * answers. Buckets are an hour long so that one event can be placed in an earlier bucket, outside a
+ * window shorter than a bucket but inside a longer one.
+ */
+@SpringBootTest(
+    classes = {KafkaStreamsConfig.class, PaymentAggregateService.class, SimpleMeterRegistry.class},
+    properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.topic.payment-events=" + PaymentAggregateServiceTest.TOPIC,
+        "transactio.aggregates.bucket=1h",
+        "transactio.aggregates.retention=3h",
+        "transactio.aggregates.user-retention=3h",
+        "transactio.aggregates.auto-offset-reset=earliest"
+    })
+@EmbeddedKafka(partitions = 3, topics = PaymentAggregateServiceTest.TOPIC)
+class PaymentAggregateServiceTest {
+
+    static final String TOPIC = "payment-events";
+
+    private static final UUID ALICE = UUID.randomUUID();
+    private static final UUID BOB = UUID.randomUUID();
+    private static final Duration BUCKET = Duration.ofHours(1);
+
+    private record Sent(UUID userId, String currency, PaymentEventType eventType, long amountMinor, Instant timestamp) {
+    }
+
+    private static final List<Sent> SENT = new ArrayList<>();
+    private static Instant earlierBucket;
+
+    @Autowired
+    private PaymentAggregateService aggregateService;
+
+    @BeforeAll
+    static void publishEvents(@Autowired EmbeddedKafkaBroker broker) {
+        Instant now = Instant.now();
+        earlierBucket = now.minus(Duration.ofMinutes(90));
+        send(ALICE, "USD", PaymentEventType.PAYMENT_CREATED, 1000, now);
+        send(ALICE, "USD", PaymentEventType.PAYMENT_CREATED, 550, now);
+        send(BOB, "USD", PaymentEventType.PAYMENT_CREATED, 225, now);
+        send(ALICE, "USD", PaymentEventType.PAYMENT_COMPLETED, 1000, now);
+        send(BOB, "EUR", PaymentEventType.PAYMENT_CREATED, 700, now);
+        send(ALICE, "JPY", PaymentEventType.PAYMENT_CREATED, 500, now);
+        send(ALICE, "USD", PaymentEventType.PAYMENT_CREATED, 100, earlierBucket);
+
+        Map<String, Object> props = KafkaTestUtils.producerProps(broker);
+        KafkaTemplate<String, PaymentEvent> template = new KafkaTemplate<>(
+            new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new PaymentEventBinarySerializer()));
+        for (Sent sent : SENT) {
+            UUID paymentId = UUID.randomUUID();
+            template.send(new ProducerRecord<>(TOPIC, paymentId.toString(), PaymentEvent.builder()
+                .paymentId(paymentId)
+                .userId(sent.userId())
+                .amount(Money.ofMinor(sent.amountMinor(), Money.currency(sent.currency())))
+                .eventType(sent.eventType())
+                .status(PaymentStatus.PENDING)
+                .timestamp(sent.timestamp())
+                .message("test")
+                .build()));
+        }
+        template.flush();
+        template.destroy();
+    }
+
+    private static void send(UUID userId, String currency, PaymentEventType eventType, long amountMinor, Instant timestamp) {
+        SENT.add(new Sent(userId, currency, eventType, amountMinor, timestamp));
+    }
+
+    @Test
+    void volumesCoverEveryBucketInTheWindow() {
+        PaymentAggregatesResponse response = awaitAll(() -> aggregateService.volumes(Duration.ofHours(3)), SENT.size());
+
+        assertThat(response.from()).isBefore(earlierBucket);
+        assertThat(totals(response)).isEqualTo(expected(response.from(), null));
+        assertThat(totals(response).get("USD|PAYMENT_CREATED")).containsExactly(4L, 1875L);
+    }
+
+    @Test
+    void windowShorterThanABucketIsWidenedToTheCurrentBucket() {
+        awaitAll(() -> aggregateService.volumes(Duration.ofHours(3)), SENT.size());
+
+        PaymentAggregatesResponse response = aggregateService.volumes(Duration.ofSeconds(1));
+
+        assertThat(response.from().toEpochMilli() % BUCKET.toMillis()).isZero();
+        assertThat(response.from()).isAfter(earlierBucket);
+        assertThat(response.from()).isBeforeOrEqualTo(response.to().minusSeconds(1));
+        assertThat(totals(response)).isEqualTo(expected(response.from(), null));
+    }
+
+    @Test
+    void userVolumesOnlyCountThatUsersEvents() {
+        awaitAll(() -> aggregateService.volumes(Duration.ofHours(3)), SENT.size());
+
+        PaymentAggregatesResponse alice = aggregateService.userVolumes(ALICE, Duration.ofHours(3));
+        assertThat(totals(alice)).isEqualTo(expected(alice.from(), ALICE));
+        assertThat(totals(alice).get("USD|PAYMENT_CREATED")).containsExactly(3L, 1650L);
+        assertThat(totals(alice).get("JPY|PAYMENT_CREATED")).containsExactly(1L, 500L);
+
+        PaymentAggregatesResponse bob = aggregateService.userVolumes(BOB, Duration.ofSeconds(1));
+        assertThat(totals(bob)).isEqualTo(expected(bob.from(), BOB));
+        assertThat(totals(bob)).doesNotContainKey("USD|PAYMENT_COMPLETED");
+    }
+
+    /** Waits until the topology has processed {@code events} events and returns the response that showed it. */
+    private static PaymentAggregatesResponse awaitAll(Supplier<PaymentAggregatesResponse> query, int events) {
+        PaymentAggregatesResponse[] last = new PaymentAggregatesResponse[1];
+        await().atMost(Duration.ofSeconds(60))
+            .ignoreException(AggregatesUnavailableException.class)
+            .until(() -> {
+                last[0] = query.get();
+                return last[0].volumes().stream().mapToLong(PaymentVolumeResponse::count).sum() == events;
+            });
+        return last[0];
+    }
+
+    private static Map<String, List<Long>> totals(PaymentAggregatesResponse response) {
+        Map<String, List<Long>> totals = new TreeMap<>();
+        for (PaymentVolumeResponse volume : response.volumes()) {
+            totals.put(volume.total().currencyCode() + "|" + volume.eventType(),
+                List.of(volume.count(), volume.total().minorUnits()));
+        }
+        return totals;
+    }
+
+    /** Count and minor-unit sum of the published events from {@code from} on, for one user or all. */
+    private static Map<String, List<Long>> expected(Instant from, UUID userId) {
+        Map<String, long[]> sums = new TreeMap<>();
+        for (Sent sent : SENT) {
+            if (sent.timestamp().isBefore(from) || (userId != null && !userId.equals(sent.userId()))) {
+                continue;
+            }
+            long[] sum = sums.computeIfAbsent(sent.currency() + "|" + sent.eventType(), key -> new long[2]);
+            sum[0]++;
+            sum[1] += sent.amountMinor();
+        }
+        Map<String, List<Long>> expected = new TreeMap<>();
+        sums.forEach((key, sum) -> expected.put(key, List.of(sum[0], sum[1])));
+        return expected;
+    }
+}
@@ -0,0 +1,296 @@
+package com.transactio.service;
+
+import com.transactio.dto.PaymentResponse;
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventType;
+import com.transactio.model.Money;
+import com.transactio.model.PaymentStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class PaymentProjectionTest {
+
+    private static final Instant CREATED = Instant.parse("2025-03-01T10:00:00.123Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<PaymentProjection> opened = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(PaymentProjection::close);
+    }
+
+    private PaymentProjection open(int capacity) {
+        PaymentProjection projection = new PaymentProjection(meterRegistry, true, directory.toString(), capacity,
+            DataSize.ofMegabytes(1));
+        opened.add(projection);
+        return projection;
+    }
+
+    @Test
+    void createdEventIsServedWholeFromTheProjection() {
+        PaymentProjection projection = open(1024);
+        PaymentEvent created = created(UUID.randomUUID(), 15_050, "Invoice 2025-0042");
+
+        projection.apply(created);
+
+        PaymentResponse response = projection.find(created.getPaymentId());
+        assertThat(response.getId()).isEqualTo(created.getPaymentId());
+        assertThat(response.getAmount()).isEqualTo(created.getAmount());
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(response.getSenderId()).isEqualTo(created.getUserId().toString());
+        assertThat(response.getReceiverId()).isEqualTo(created.getReceiverId());
+        assertThat(response.getDescription()).isEqualTo("Invoice 2025-0042");
+        assertThat(response.getCreatedAt()).isEqualTo(CREATED);
+        assertThat(response.getUpdatedAt()).isEqualTo(CREATED);
+    }
+
+    @Test
+    void unknownOrIncompletePaymentIsLeftToTheDatabase() {
+        PaymentProjection projection = open(1024);
+        UUID id = UUID.randomUUID();
+
+        assertThat(projection.find(id)).isNull();
+        projection.apply(status(id, PaymentEventType.PAYMENT_COMPLETED, PaymentStatus.COMPLETED, 5));
+        assertThat(projection.find(id)).isNull();
+
+        // The created event arriving late fills the payment but keeps the later status
+        projection.apply(created(id, 100, null));
+
+        PaymentResponse response = projection.find(id);
+        assertThat(response.getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(response.getUpdatedAt()).isEqualTo(CREATED.plusSeconds(5));
+        assertThat(response.getDescription()).isNull();
+        assertThat(meterRegistry.get("transactio.projection.reads").tag("result", "miss").counter().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void statusOnlyMovesForwardInTheLifecycle() {
+        PaymentProjection projection = open(1024);
+        UUID id = UUID.randomUUID();
+        projection.apply(created(id, 100, "x"));
+        projection.apply(status(id, PaymentEventType.PAYMENT_COMPLETED, PaymentStatus.COMPLETED, 2));
+
+        // Late PROCESSING, a FAILED of the same rank and a replayed CREATED change nothing
+        projection.apply(status(id, PaymentEventType.PAYMENT_PROCESSING, PaymentStatus.PROCESSING, 1));
+        projection.apply(status(id, PaymentEventType.PAYMENT_FAILED, PaymentStatus.FAILED, 3));
+        projection.apply(created(id, 100, "x"));
+        assertThat(projection.find(id).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(projection.find(id).getUpdatedAt()).isEqualTo(CREATED.plusSeconds(2));
+    }
+
+    @Test
+    void fullTableLeavesNewPaymentsUntracked() {
+        // Four slots, filled to 75%
+        PaymentProjection projection = open(4);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(UUID.randomUUID());
+            projection.apply(created(ids.get(i), 100 + i, null));
+        }
+
+        assertThat(ids.stream().filter(id -> projection.find(id) != null)).hasSize(3);
+        assertThat(meterRegistry.get("transactio.projection.untracked").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reopenedProjectionKeepsPaymentsAndSeeksPastTheSnapshot() {
+        PaymentProjection projection = open(1024);
+        PaymentEvent created = created(UUID.randomUUID(), 700, "kept");
+        projection.onPaymentEvents(List.of(
+            new ConsumerRecord<>("payment-events", 0, 41, created.getPaymentId().toString(), created),
+            new ConsumerRecord<>("payment-events", 2, 7, created.getPaymentId().toString(),
+                status(created.getPaymentId(), PaymentEventType.PAYMENT_PROCESSING, PaymentStatus.PROCESSING, 1))));
+        projection.close();
+        opened.clear();
+
+        PaymentProjection reopened = open(1024);
+        ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+        reopened.onPartitionsAssigned(Map.of(
+            new TopicPartition("payment-events", 0), 0L,
+            new TopicPartition("payment-events", 1), 0L,
+            new TopicPartition("payment-events", 2), 0L), callback);
+
+        verify(callback).seek("payment-events", 0, 42);
+        verify(callback).seek("payment-events", 2, 8);
+        verifyNoMoreInteractions(callback);
+        assertThat(reopened.find(created.getPaymentId()).getStatus()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(reopened.find(created.getPaymentId()).getDescription()).isEqualTo("kept");
+    }
+
+    @Test
+    void readerWaitsWhileTheSlotIsBeingWritten() throws Exception {
+        PaymentProjection projection = open(1024);
+        UUID id = UUID.randomUUID();
+        projection.apply(created(id, 100, null));
+        MappedByteBuffer index = mapIndex();
+        int seq = slot(index, id);
+
+        // Stand in for a writer that has bumped the sequence and not yet finished
+        index.putInt(seq, index.getInt(seq) + 1);
+        CompletableFuture<PaymentResponse> read = CompletableFuture.supplyAsync(() -> projection.find(id));
+        Thread.sleep(200);
+        assertThat(read).isNotDone();
+
+        projection.apply(status(id, PaymentEventType.PAYMENT_PROCESSING, PaymentStatus.PROCESSING, 1));
+        index.putInt(seq, index.getInt(seq) + 1);
+
+        assertThat(read.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(PaymentStatus.PROCESSING);
+    }
+
+    @Test
+    void writeInterruptedByACrashIsReleasedOnReopen() throws Exception {
+        PaymentProjection projection = open(1024);
+        UUID id = UUID.randomUUID();
+        projection.apply(created(id, 100, null));
+        MappedByteBuffer index = mapIndex();
+        int seq = slot(index, id);
+        index.putInt(seq, index.getInt(seq) + 1);
+        // Not closed, so the index is still marked unclean
+        opened.clear();
+
+        PaymentProjection reopened = open(1024);
+
+        assertThat(CompletableFuture.supplyAsync(() -> reopened.find(id)).get(5, TimeUnit.SECONDS).getStatus())
+            .isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void readersNeverSeeAHalfWrittenPayment() throws Exception {
+        PaymentProjection projection = open(1 << 14);
+        int payments = 5_000;
+        UUID[] ids = new UUID[payments];
+        for (int i = 0; i < payments; i++) {
+            ids[i] = new UUID(i + 1, ThreadLocalRandom.current().nextLong());
+        }
+        // Readers follow the writer, so most reads land on the slot being written
+        AtomicInteger current = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<CompletableFuture<Integer>> readers = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int r = 0; r < 3; r++) {
+                readers.add(CompletableFuture.supplyAsync(() -> {
+                    int seen = 0;
+                    while (writing.get()) {
+                        int i = current.get();
+                        PaymentResponse response = projection.find(ids[i]);
+                        if (response != null) {
+                            assertConsistent(i, response);
+                            seen++;
+                        }
+                    }
+                    return seen;
+                }, executor));
+            }
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < payments; i++) {
+                    current.set(i);
+                    projection.apply(created(ids[i], i, "payment " + i, new UUID(i, i)));
+                    projection.apply(status(ids[i], PaymentEventType.PAYMENT_PROCESSING, PaymentStatus.PROCESSING, 1));
+                    projection.apply(status(ids[i], PaymentEventType.PAYMENT_COMPLETED, PaymentStatus.COMPLETED, 2));
+                }
+                writing.set(false);
+            }, executor);
+
+            writer.get(60, TimeUnit.SECONDS);
+            for (CompletableFuture<Integer> reader : readers) {
+                assertThat(reader.get(60, TimeUnit.SECONDS)).isPositive();
+            }
+        }
+        for (int i = 0; i < payments; i++) {
+            assertThat(projection.find(ids[i]).getStatus()).isEqualTo(PaymentStatus.COMPLETED);
+        }
+    }
+
+    /** Each status was written with its own updatedAt, and every other field is derived from the index. */
+    private static void assertConsistent(int i, PaymentResponse response) {
+        long secondsAfterCreation = switch (response.getStatus()) {
+            case PENDING -> 0;
+            case PROCESSING -> 1;
+            case COMPLETED -> 2;
+            default -> throw new AssertionError("Unexpected status " + response.getStatus());
+        };
+        assertThat(response.getUpdatedAt()).isEqualTo(CREATED.plusSeconds(secondsAfterCreation));
+        assertThat(response.getAmount().minorUnits()).isEqualTo(i);
+        assertThat(response.getSenderId()).isEqualTo(new UUID(i, i).toString());
+        assertThat(response.getDescription()).isEqualTo("payment " + i);
+    }
+
+    private MappedByteBuffer mapIndex() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve("index"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+    }
+
+    /** Position of the sequence number of {@code id}'s slot: 4096-byte header, 80-byte slots, ID at +16. */
+    private static int slot(MappedByteBuffer index, UUID id) {
+        for (int base = 4096; base + 80 <= index.capacity(); base += 80) {
+            if (index.getLong(base + 16) == id.getMostSignificantBits()
+                && index.getLong(base + 24) == id.getLeastSignificantBits()) {
+                return base;
+            }
+        }
+        throw new AssertionError("No slot for " + id);
+    }
+
+    private static PaymentEvent created(UUID id, long amountMinor, String description) {
+        return created(id, amountMinor, description, UUID.randomUUID());
+    }
+
+    private static PaymentEvent created(UUID id, long amountMinor, String description, UUID sender) {
+        return PaymentEvent.builder()
+            .paymentId(id)
+            .userId(sender)
+            .amount(Money.ofMinor(amountMinor, Money.currency("USD")))
+            .eventType(PaymentEventType.PAYMENT_CREATED)
+            .status(PaymentStatus.PENDING)
+            .timestamp(CREATED)
+            .receiverId("receiver-" + amountMinor)
+            .description(description)
+            .build();
+    }
+
+    private static PaymentEvent status(UUID id, PaymentEventType type, PaymentStatus status, long secondsAfterCreation) {
+        return PaymentEvent.builder()
+            .paymentId(id)
+            .eventType(type)
+            .status(status)
+            .timestamp(CREATED.plusSeconds(secondsAfterCreation))
+            .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.transactio.service;
+
+import com.transactio.event.PaymentEvent;
+import com.transactio.event.PaymentEventType;
+import com.transactio.model.Payment;
+import com.transactio.model.PaymentStatus;
+import com.transactio.repository.PaymentTransitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link PaymentTransitionWriter} with the real version-checked UPDATE on Postgres; the outbox
+ * producer and the second-level cache are mocked.
+ */
+class PaymentTransitionWriterTest {
+
+    private static final String INSERT = """
+        insert into payments (id, amount_minor, currency, status, created_at, updated_at, sender_id,
+                              receiver_id, version)
+        values (?, 1000, 'USD', 'PENDING', ?, ?, 'alice', 'bob', 0)""";
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbc;
+    private static TransactionTemplate transactionTemplate;
+
+    private final PaymentEventProducer eventProducer = mock(PaymentEventProducer.class);
+    private final Cache cache = mock(Cache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentTransitionWriter writer = newWriter();
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    private PaymentTransitionWriter newWriter() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        return new PaymentTransitionWriter(new PaymentTransitionRepository(jdbc), eventProducer, transactionTemplate,
+            entityManagerFactory, Duration.ofMillis(5), 500, 2, meterRegistry);
+    }
+
+    @Test
+    void transitionUpdatesTheRowAndThePayment() throws Exception {
+        Payment payment = insertPayment();
+        PaymentEvent event = event(payment, PaymentStatus.PROCESSING);
+
+        writer.submit(payment, PaymentStatus.PROCESSING, event).get(5, TimeUnit.SECONDS);
+
+        assertThat(row(payment)).isEqualTo("PROCESSING/1");
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PROCESSING);
+        assertThat(payment.getVersion()).isEqualTo(1);
+        assertThat(payment.getUpdatedAt()).isEqualTo(event.getTimestamp());
+        verify(eventProducer).sendPaymentEvent(event);
+        verify(cache).evict(Payment.class, payment.getId());
+    }
+
+    @Test
+    void staleVersionFailsWithoutWritingTheEvent() {
+        Payment payment = insertPayment();
+        // Another node moves the payment on behind this copy's version
+        jdbc.update("update payments set status = 'CANCELLED', version = version + 1 where id = ?", payment.getId());
+
+        CompletableFuture<Void> result = writer.submit(payment, PaymentStatus.PROCESSING,
+            event(payment, PaymentStatus.PROCESSING));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(row(payment)).isEqualTo("CANCELLED/1");
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(payment.getVersion()).isZero();
+        verify(eventProducer, never()).sendPaymentEvent(any());
+        assertThat(meterRegistry.counter("transactio.transitions.conflicts").count()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadAfterAConflictLetsTheRetrySucceed() throws Exception {
+        Payment payment = insertPayment();
+        jdbc.update("update payments set status = 'PROCESSING', version = version + 1 where id = ?", payment.getId());
+        CompletableFuture<Void> stale = writer.submit(payment, PaymentStatus.COMPLETED,
+            event(payment, PaymentStatus.COMPLETED));
+        assertThatThrownBy(() -> stale.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(writer.reload(payment)).isTrue();
+        writer.submit(payment, PaymentStatus.COMPLETED, event(payment, PaymentStatus.COMPLETED)).get(5, TimeUnit.SECONDS);
+
+        assertThat(row(payment)).isEqualTo("COMPLETED/2");
+        assertThat(payment.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void onlyTheStaleTransitionInAFlushFails() throws Exception {
+        Payment current = insertPayment();
+        Payment stale = insertPayment();
+        stale.setVersion(7);
+
+        CompletableFuture<Void> applied = writer.submit(current, PaymentStatus.PROCESSING,
+            event(current, PaymentStatus.PROCESSING));
+        CompletableFuture<Void> rejected = writer.submit(stale, PaymentStatus.PROCESSING,
+            event(stale, PaymentStatus.PROCESSING));
+
+        applied.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(row(current)).isEqualTo("PROCESSING/1");
+        assertThat(row(stale)).isEqualTo("PENDING/0");
+    }
+
+    @Test
+    void failedFlushRollsBackTheStatusUpdate() {
+        Payment payment = insertPayment();
+        doThrow(new IllegalStateException("outbox unavailable")).when(eventProducer).sendPaymentEvent(any());
+
+        CompletableFuture<Void> result = writer.submit(payment, PaymentStatus.PROCESSING,
+            event(payment, PaymentStatus.PROCESSING));
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("outbox unavailable");
+        assertThat(row(payment)).isEqualTo("PENDING/0");
+        assertThat(payment.getVersion()).isZero();
+    }
+
+    private static Payment insertPayment() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Payment payment = new Payment();
+        payment.setId(Payment.newId());
+        payment.setCreatedAt(now);
+        payment.setUpdatedAt(now);
+        jdbc.update(INSERT, payment.getId(), Timestamp.from(now), Timestamp.from(now));
+        return payment;
+    }
+
+    private static PaymentEvent event(Payment payment, PaymentStatus status) {
+        return PaymentEvent.builder()
+            .paymentId(payment.getId())
+            .eventType(PaymentEventType.valueOf("PAYMENT_" + status.name()))
+            .status(status)
+            .timestamp(Instant.now().truncatedTo(ChronoUnit.MICROS))
+            .build();
+    }
+
+    private static String row(Payment payment) {
+        return jdbc.queryForObject("select status || '/' || version from payments where id = ?", String.class,
+            payment.getId());
+    }
+}
@@ -0,0 +1,100 @@
+package com.transactio.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class SlidingWindowCounterTest {
+
+    private static final long ORIGIN = 1_700_000_000_000L;
+
+    // Ten one-second buckets
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(10), 10, 64, ORIGIN);
+
+    @Test
+    void countsEventsPerKeyWithinTheWindow() {
+        assertThat(counter.record(1, ORIGIN)).isEqualTo(1);
+        assertThat(counter.record(1, ORIGIN + 500)).isEqualTo(2);
+        assertThat(counter.record(2, ORIGIN + 600)).isEqualTo(1);
+        assertThat(counter.record(1, ORIGIN + 9_999)).isEqualTo(3);
+    }
+
+    @Test
+    void windowSlidesOneBucketAtATime() {
+        counter.record(1, ORIGIN);            // bucket 0
+        counter.record(1, ORIGIN + 999);      // bucket 0
+        counter.record(1, ORIGIN + 5_000);    // bucket 5
+
+        // Bucket 10 reuses bucket 0's cell: the two oldest events leave, the one in bucket 5 stays
+        assertThat(counter.record(1, ORIGIN + 10_000)).isEqualTo(2);
+        assertThat(counter.record(1, ORIGIN + 14_999)).isEqualTo(3);
+        // Bucket 15 is ten buckets after bucket 5
+        assertThat(counter.record(1, ORIGIN + 15_000)).isEqualTo(3);
+    }
+
+    @Test
+    void countStartsOverAfterAnIdleWindow() {
+        for (int i = 0; i < 5; i++) {
+            counter.record(1, ORIGIN + i);
+        }
+
+        assertThat(counter.record(1, ORIGIN + 25_000)).isEqualTo(1);
+    }
+
+    @Test
+    void timeBeforeTheOriginCountsAsTheFirstBucket() {
+        counter.record(1, ORIGIN - 60_000);
+
+        assertThat(counter.record(1, ORIGIN + 100)).isEqualTo(2);
+    }
+
+    @Test
+    void fullTableLeavesNewKeysUntrackedUntilASlotIsIdle() {
+        SlidingWindowCounter small = new SlidingWindowCounter(Duration.ofSeconds(10), 10, 4, ORIGIN);
+        for (long key = 1; key <= 4; key++) {
+            small.record(key, ORIGIN);
+        }
+
+        assertThat(small.record(5, ORIGIN)).isEqualTo(1);
+        assertThat(small.record(5, ORIGIN + 1)).isEqualTo(1);
+        assertThat(small.overflows()).isEqualTo(2);
+
+        // The other keys have been idle for a whole window, so key 5 takes over a slot
+        assertThat(small.record(5, ORIGIN + 10_000)).isEqualTo(1);
+        assertThat(small.record(5, ORIGIN + 10_001)).isEqualTo(2);
+        assertThat(small.overflows()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentEventsForOneKeyAreAllCounted() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                done.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.record(42, ORIGIN + 1_500);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get();
+        }
+
+        assertThat(counter.record(42, ORIGIN + 1_500)).isEqualTo(threads * perThread + 1);
+    }
+
+    @Test
+    void windowShorterThanOneMillisecondPerBucketIsRejected() {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> new SlidingWindowCounter(Duration.ofMillis(5), 10, 64, ORIGIN));
+    }
+}